@@ -0,0 +1,987 @@
+package mwong.myprojects.boggle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * BoggleBenchmark is the command line timing tool of Boggle dictionary and solver.
+ * It takes the dictionary file path and the benchmark name, or run all benchmarks.
+ *
+ * <p>Dependencies : BoggleBoard.java, BoggleDictionary.java, BoggleDictionaryBitmap.java,
+ *                   BoggleDictionaryDawg.java, BoggleDictionaryMapped.java,
+ *                   BoggleDictionaryNarrow.java,
+ *                   BoggleOptions.java, BoggleSolver.java, BoggleWordList.java,
+ *                   WordSink.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleBenchmark {
+    private static final String SEPARATOR = System.getProperty("file.separator");
+    private static final int ROUNDS = 5;
+    private static final int BOARDS = 200;
+    private static final int BATCH = 5000;
+    private static final int FIRST_WORDS = 10;
+    private static final int BOUNDS_BOARDS = 1000;
+    private static final int GUESSES = 20;
+    private static final int MAX_SIZE = 9;
+    private static final BoggleOptions[] SIZES = {BoggleOptions.CLASSIC,
+        BoggleOptions.DELUXE, BoggleOptions.SUPERBIG};
+
+    // timing of loading the dictionary from word list and from snapshot
+    private static void loading(String filepath) {
+        System.out.println("Timing dictionary loading : " + filepath);
+        String snapshotpath = filepath + ".benchmark.snapshot";
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        if (!dictionary.writeSnapshot(snapshotpath)) {
+            System.out.println("  - unable to write snapshot " + snapshotpath);
+            return;
+        }
+
+        double[] text = new double[ROUNDS];
+        double[] snapshot = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            dictionary = new BoggleDictionary(filepath);
+            text[round] = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            dictionary = BoggleDictionary.loadSnapshot(snapshotpath);
+            snapshot[round] = (System.nanoTime() - start) / 1e9;
+        }
+        new File(snapshotpath).delete();
+
+        System.out.printf("  - word list  cold start (in seconds): %.3f   average: %.3f%n",
+                text[0], average(text));
+        System.out.printf("  - snapshot   cold start (in seconds): %.3f   average: %.3f%n",
+                snapshot[0], average(snapshot));
+        System.out.printf("  - ratio:                               %.2f%n",
+                average(text) / average(snapshot));
+    }
+
+    // timing of reading, sorting and building the dictionary from the word list in
+    // file order and in shuffled order, compare to reading the lines into a TreeSet
+    private static void ingestion(String filepath) {
+        System.out.println("Timing word list ingestion : " + filepath);
+        String shuffledpath = filepath + ".benchmark.shuffled";
+        if (!writeShuffled(filepath, shuffledpath)) {
+            System.out.println("  - unable to write shuffled word list " + shuffledpath);
+            return;
+        }
+        String[] paths = {filepath, shuffledpath};
+        String[] names = {"file order", "shuffled"};
+        ForkJoinPool pool = Runtime.getRuntime().availableProcessors() > 1
+                ? ForkJoinPool.commonPool() : null;
+        try {
+            for (int i = 0; i < paths.length; i++) {
+                double treeSet = Double.MAX_VALUE;
+                double read = Double.MAX_VALUE;
+                double sort = Double.MAX_VALUE;
+                double load = Double.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    readTreeSet(paths[i]);
+                    treeSet = Math.min(treeSet, (System.nanoTime() - start) / 1e9);
+
+                    start = System.nanoTime();
+                    BoggleWordList list = BoggleWordList.read(paths[i]);
+                    read = Math.min(read, (System.nanoTime() - start) / 1e9);
+                    start = System.nanoTime();
+                    list.sort(pool);
+                    sort = Math.min(sort, (System.nanoTime() - start) / 1e9);
+
+                    start = System.nanoTime();
+                    new BoggleDictionary(paths[i]);
+                    load = Math.min(load, (System.nanoTime() - start) / 1e9);
+                }
+                System.out.printf("  %-10s lines into TreeSet   : %8.1f milliseconds%n",
+                        names[i], treeSet * 1e3);
+                System.out.printf("  %-10s word list read       : %8.1f milliseconds%n",
+                        names[i], read * 1e3);
+                System.out.printf("  %-10s word list sort       : %8.1f milliseconds%n",
+                        names[i], sort * 1e3);
+                System.out.printf("  %-10s dictionary load      : %8.1f milliseconds%n",
+                        names[i], load * 1e3);
+            }
+        } catch (IOException ex) {
+            System.out.println("  - unable to read word list " + ex.getMessage());
+        } finally {
+            new File(shuffledpath).delete();
+        }
+    }
+
+    // read the trimmed upper case lines of the given file into a TreeSet, the
+    // String per line reference of the word list
+    private static TreeSet<String> readTreeSet(String filepath) throws IOException {
+        TreeSet<String> lines = new TreeSet<String>();
+        try (BufferedReader in = new BufferedReader(new FileReader(filepath))) {
+            String line = in.readLine();
+            while (line != null) {
+                line = line.trim().toUpperCase();
+                if (line.length() > 0) {
+                    lines.add(line);
+                }
+                line = in.readLine();
+            }
+        }
+        return lines;
+    }
+
+    // write the lines of the given file in random order to the given path, return
+    // the boolean represent the file has been written
+    private static boolean writeShuffled(String filepath, String shuffledpath) {
+        ArrayList<String> lines = new ArrayList<String>();
+        try (BufferedReader in = new BufferedReader(new FileReader(filepath))) {
+            String line = in.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = in.readLine();
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+        Collections.shuffle(lines, new Random(1));
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(shuffledpath))) {
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+        return true;
+    }
+
+    // return the list of the given words
+    private static List<String> toList(Iterable<String> words) {
+        ArrayList<String> list = new ArrayList<String>();
+        for (String word : words) {
+            list.add(word);
+        }
+        return list;
+    }
+
+    // return the custom board of the given size and gui codes, the custom board
+    // constructor prints the gui codes
+    private static BoggleBoard customBoard(int size, byte[] codes) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int value) {
+            }
+        }));
+        try {
+            return new BoggleBoard(size, codes);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    // BoggleDictionary count the next key lookups of the search on the given dictionary,
+    // and the next keys entered after the letter mask and word length checks (the
+    // solver reads getNextNumber of a next key only after both checks pass).  The
+    // letter masks and the word length bounds can be turned off.
+    private static class CountingDictionary extends BoggleDictionary {
+        private final BoggleDictionary dictionary;
+        private boolean masks;
+        private boolean bounds;
+        private long lookups;
+        private long entered;
+
+        CountingDictionary(BoggleDictionary dictionary) {
+            super(dictionary);
+            this.dictionary = dictionary;
+            masks = true;
+            bounds = true;
+        }
+
+        void setMasks(boolean masks) {
+            this.masks = masks;
+        }
+
+        void setBounds(boolean bounds) {
+            this.bounds = bounds;
+        }
+
+        void resetCounters() {
+            lookups = 0;
+            entered = 0;
+        }
+
+        long getLookups() {
+            return lookups;
+        }
+
+        long getEntered() {
+            return entered;
+        }
+
+        @Override
+        protected int getNextKey(int key, int ch) {
+            lookups++;
+            return dictionary.getNextKey(key, ch);
+        }
+
+        @Override
+        protected int getNextNumber(int key, int ch) {
+            entered++;
+            return dictionary.getNextNumber(key, ch);
+        }
+
+        @Override
+        protected int getLetterMask(int key) {
+            return masks ? dictionary.getLetterMask(key) : 0;
+        }
+
+        @Override
+        protected int getMaxWordLength(int key, int length) {
+            return bounds ? dictionary.getMaxWordLength(key, length) : Integer.MAX_VALUE;
+        }
+    }
+
+    // timing of sequential search of random boards by board size
+    private static void search(String filepath) {
+        System.out.println("Timing search of " + BATCH + " random boards : " + filepath);
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            double best = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWords(board);
+                }
+                best = Math.min(best, (System.nanoTime() - start) / 1e9);
+            }
+            System.out.printf("  %-10s : %10.0f boards per second%n", option.getType(),
+                    BATCH / best);
+        }
+    }
+
+    // latency of search of first words by word sink compare to full search
+    private static void sink(String filepath) {
+        System.out.println("Timing search of first " + FIRST_WORDS + " words : " + filepath);
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        final int[] count = new int[1];
+        WordSink firstWords = new WordSink() {
+            @Override
+            public boolean accept(String word, int wordIdx) {
+                return ++count[0] < FIRST_WORDS;
+            }
+        };
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            double full = Double.MAX_VALUE;
+            double first = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWords(board);
+                }
+                full = Math.min(full, (System.nanoTime() - start) / 1e9 / boards.length);
+
+                start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    count[0] = 0;
+                    solver.solve(board, firstWords);
+                }
+                first = Math.min(first, (System.nanoTime() - start) / 1e9 / boards.length);
+            }
+            System.out.printf("  %-10s all words   : %8.1f microseconds per board%n",
+                    option.getType(), full * 1e6);
+            System.out.printf("  %-10s first words : %8.1f microseconds per board%n",
+                    option.getType(), first * 1e6);
+        }
+    }
+
+    // timing of total scores by the score mode compare to scoring the list of words
+    private static void score(String filepath) {
+        System.out.println("Timing total scores of " + BOARDS + " boards : " + filepath);
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            int minWordLength = option.getMinWordLength();
+            double list = Double.MAX_VALUE;
+            double score = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    int scores = 0;
+                    for (String word : solver.getAllValidWords(board)) {
+                        if (word.length() >= minWordLength) {
+                            scores += minWordLength == 3 ? solver.scoreOf(word)
+                                    : solver.scoreOfBig(word);
+                        }
+                    }
+                }
+                list = Math.min(list, (System.nanoTime() - start) / 1e9 / boards.length);
+
+                start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    solver.score(board, minWordLength).getScores();
+                }
+                score = Math.min(score, (System.nanoTime() - start) / 1e9 / boards.length);
+            }
+            System.out.printf("  %-10s list and scoreOf : %8.1f microseconds per board%n",
+                    option.getType(), list * 1e6);
+            System.out.printf("  %-10s score mode       : %8.1f microseconds per board%n",
+                    option.getType(), score * 1e6);
+        }
+    }
+
+    // next key lookups, next keys entered and search throughput of the same boards
+    // with the letter masks on and off, both through the counting dictionary
+    private static void pruning(String filepath) {
+        System.out.println("Letter masks pruning of " + BATCH + " random boards : " + filepath);
+        CountingDictionary counting = new CountingDictionary(new BoggleDictionary(filepath));
+        BoggleSolver solver = new BoggleSolver(counting);
+        boolean[] masks = {false, true};
+        String[] names = {"masks off", "masks on"};
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            // alternate the settings in each round, both have the same warm up
+            double[] best = {Double.MAX_VALUE, Double.MAX_VALUE};
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < masks.length; i++) {
+                    counting.setMasks(masks[i]);
+                    best[i] = Math.min(best[i], bestTime(solver, boards, 1));
+                }
+            }
+            for (int i = 0; i < masks.length; i++) {
+                counting.setMasks(masks[i]);
+                counting.resetCounters();
+                long words = 0;
+                for (BoggleBoard board : boards) {
+                    words += solver.getAllValidWordIds(board).length;
+                }
+                System.out.printf("  %-10s %-9s : %8.0f lookups %8.0f entered %7.1f words "
+                        + "per board   %6.0f boards per second%n", option.getType(), names[i],
+                        counting.getLookups() / (double) BATCH,
+                        counting.getEntered() / (double) BATCH, words / (double) BATCH,
+                        BATCH / best[i]);
+            }
+        }
+        counting.setMasks(true);
+    }
+
+    // next keys entered and search throughput of the word length bounds inside the
+    // search, compare to the same bounds without the maxWordLength check of the next
+    // key, and to the full search with the words filtered by length afterward
+    private static void bounds(String filepath) {
+        System.out.println("Word length bounds of " + BOUNDS_BOARDS + " random boards : "
+                + filepath);
+        CountingDictionary counting = new CountingDictionary(new BoggleDictionary(filepath));
+        BoggleSolver solver = new BoggleSolver(counting);
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BOUNDS_BOARDS];
+            for (int i = 0; i < BOUNDS_BOARDS; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            int[][] lengths = {{0, Integer.MAX_VALUE},
+                {option.getMinWordLength(), Integer.MAX_VALUE}, {8, Integer.MAX_VALUE},
+                {0, 5}};
+            for (int[] length : lengths) {
+                // alternate the settings in each round, all have the same warm up
+                double[] best = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+                for (int round = 0; round < ROUNDS; round++) {
+                    counting.setBounds(true);
+                    solver.setWordLength(length[0], length[1]);
+                    best[0] = Math.min(best[0], bestTime(solver, boards, 1));
+                    counting.setBounds(false);
+                    best[1] = Math.min(best[1], bestTime(solver, boards, 1));
+                    counting.setBounds(true);
+                    solver.setWordLength(0, Integer.MAX_VALUE);
+                    long start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        int count = 0;
+                        for (String word : solver.getAllValidWords(board)) {
+                            if (word.length() >= length[0] && word.length() <= length[1]) {
+                                count++;
+                            }
+                        }
+                    }
+                    best[2] = Math.min(best[2], (System.nanoTime() - start) / 1e9);
+                }
+                solver.setWordLength(length[0], length[1]);
+                long[] entered = new long[2];
+                for (int i = 0; i < entered.length; i++) {
+                    counting.setBounds(i == 0);
+                    counting.resetCounters();
+                    for (BoggleBoard board : boards) {
+                        solver.getAllValidWordIds(board);
+                    }
+                    entered[i] = counting.getEntered();
+                }
+                counting.setBounds(true);
+                solver.setWordLength(0, Integer.MAX_VALUE);
+                String bound = length[0] + " - "
+                        + (length[1] == Integer.MAX_VALUE ? "max" : length[1]);
+                System.out.printf("  %-10s %-7s : %8.0f entered (%8.0f without check)   "
+                        + "%6.0f boards per second (%6.0f without check, %6.0f filtered)%n",
+                        option.getType(), bound, entered[0] / (double) BOUNDS_BOARDS,
+                        entered[1] / (double) BOUNDS_BOARDS, BOUNDS_BOARDS / best[0],
+                        BOUNDS_BOARDS / best[1], BOUNDS_BOARDS / best[2]);
+            }
+        }
+    }
+
+    // latency and next keys entered of the top words by the bounded heap compare to
+    // the full search sorted by length and word
+    private static void top(String filepath) {
+        System.out.println("Timing top words of " + BOARDS + " boards : " + filepath);
+        CountingDictionary counting = new CountingDictionary(new BoggleDictionary(filepath));
+        BoggleSolver solver = new BoggleSolver(counting);
+        Comparator<String> longest = new Comparator<String>() {
+            @Override
+            public int compare(String word1, String word2) {
+                if (word1.length() != word2.length()) {
+                    return word2.length() - word1.length();
+                }
+                return word1.compareTo(word2);
+            }
+        };
+        int[] counts = {1, 10, 50};
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            double full = Double.MAX_VALUE;
+            double[] top = new double[counts.length];
+            Arrays.fill(top, Double.MAX_VALUE);
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    List<String> words = toList(solver.getAllValidWords(board));
+                    Collections.sort(words, longest);
+                }
+                full = Math.min(full, (System.nanoTime() - start) / 1e9 / boards.length);
+                for (int i = 0; i < counts.length; i++) {
+                    start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        solver.getTopWords(board, counts[i]);
+                    }
+                    top[i] = Math.min(top[i],
+                            (System.nanoTime() - start) / 1e9 / boards.length);
+                }
+            }
+            counting.resetCounters();
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWords(board);
+            }
+            System.out.printf("  %-10s full and sort : %8.1f microseconds per board   "
+                    + "%8.0f entered%n", option.getType(), full * 1e6,
+                    counting.getEntered() / (double) boards.length);
+            for (int i = 0; i < counts.length; i++) {
+                counting.resetCounters();
+                for (BoggleBoard board : boards) {
+                    solver.getTopWords(board, counts[i]);
+                }
+                System.out.printf("  %-10s top %-9d : %8.1f microseconds per board   "
+                        + "%8.0f entered%n", option.getType(), counts[i], top[i] * 1e6,
+                        counting.getEntered() / (double) boards.length);
+            }
+        }
+    }
+
+    // latency of tracing a guess by findPath compare to the full search of the board,
+    // the guesses are the words found on the board and random dictionary words, and
+    // the worst cases of the guesses longer than the dices can trace
+    private static void path(String filepath) {
+        System.out.println("Timing path of guesses of " + BOARDS + " boards : " + filepath);
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        BoggleSolver solver = new BoggleSolver(dictionary);
+        Random random = new Random(BOARDS);
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            String[][] guesses = new String[boards.length][];
+            for (int i = 0; i < boards.length; i++) {
+                List<String> words = toList(solver.getAllValidWords(boards[i]));
+                List<String> list = new ArrayList<String>(words.subList(0,
+                        Math.min(GUESSES, words.size())));
+                for (int g = 0; g < GUESSES; g++) {
+                    list.add(dictionary.wordAt(random.nextInt(dictionary.getWordCount())));
+                }
+                guesses[i] = list.toArray(new String[list.size()]);
+            }
+            double full = Double.MAX_VALUE;
+            double guess = Double.MAX_VALUE;
+            int count = 0;
+            int traced = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWordIds(board);
+                }
+                full = Math.min(full, (System.nanoTime() - start) / 1e9 / boards.length);
+
+                count = 0;
+                traced = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < boards.length; i++) {
+                    for (String word : guesses[i]) {
+                        count++;
+                        if (solver.findPath(boards[i], word) != null) {
+                            traced++;
+                        }
+                    }
+                }
+                guess = Math.min(guess, (System.nanoTime() - start) / 1e9 / count);
+            }
+            System.out.printf("  %-10s full search : %8.1f microseconds per board%n",
+                    option.getType(), full * 1e6);
+            System.out.printf("  %-10s findPath    : %8.1f microseconds per guess   "
+                    + "%d of %d traced%n", option.getType(), guess * 1e6, traced, count);
+        }
+
+        // the guess of A on every dice of a board of all A but one B, and of a board
+        // of all A split by a column of blank dices
+        for (int size = 4; size <= MAX_SIZE; size++) {
+            byte[] codes = new byte[size * size];
+            Arrays.fill(codes, (byte) 1);
+            codes[codes.length / 2] = 2;
+            worstPath(solver, size, codes, "one B", codes.length);
+            Arrays.fill(codes, (byte) 1);
+            for (int row = 0; row < size; row++) {
+                codes[row * size + size / 2] = 0;
+            }
+            worstPath(solver, size, codes, "split", codes.length - size);
+        }
+    }
+
+    // print the time of findPath of the guess of the given number of A on the custom
+    // board of the given size and gui codes
+    private static void worstPath(BoggleSolver solver, int size, byte[] codes, String name,
+            int length) {
+        BoggleBoard board = customBoard(size, codes);
+        char[] word = new char[length];
+        Arrays.fill(word, 'A');
+        long start = System.nanoTime();
+        int[] path = solver.findPath(board, new String(word));
+        System.out.printf("  %d x %d %-5s %2d A   : %8.1f microseconds   %s%n", size, size,
+                name, length, (System.nanoTime() - start) / 1e3,
+                path == null ? "not traced" : "traced");
+    }
+
+    // memory of next trie set storage and search throughput by dictionary layout
+    private static void layout(String filepath) {
+        System.out.println("Dictionary layout of next trie set : " + filepath);
+        long heap = usedMemory();
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        long heapRows = usedMemory() - heap;
+        heap = usedMemory();
+        BoggleDictionary bitmap = new BoggleDictionaryBitmap(dictionary);
+        long heapBitmap = usedMemory() - heap + heapRows - dictionary.getTrieMemory();
+        heap = usedMemory();
+        BoggleDictionary dawg = new BoggleDictionaryDawg(filepath);
+        long heapDawg = usedMemory() - heap;
+
+        BoggleDictionary[] layouts = {dictionary, bitmap, dawg};
+        long[] heaps = {heapRows, heapBitmap, heapDawg};
+        String[] names = {"26-way rows", "bitmap", "DAWG"};
+        if (BoggleDictionaryNarrow.fits(dictionary)) {
+            heap = usedMemory();
+            BoggleDictionary narrow = new BoggleDictionaryNarrow(dictionary);
+            long heapNarrow = usedMemory() - heap + heapRows - dictionary.getTrieMemory();
+            layouts = new BoggleDictionary[] {dictionary, narrow, bitmap, dawg};
+            heaps = new long[] {heapRows, heapNarrow, heapBitmap, heapDawg};
+            names = new String[] {"26-way rows", "16-bit rows", "bitmap", "DAWG"};
+        } else {
+            System.out.println("  16-bit rows  : keys do not fit in 16 bits");
+        }
+        for (int i = 0; i < layouts.length; i++) {
+            System.out.printf("  %-12s : next trie set %10d bytes   dictionary heap %10d bytes%n",
+                    names[i], layouts[i].getTrieMemory(), heaps[i]);
+        }
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            for (int i = 0; i < layouts.length; i++) {
+                BoggleSolver solver = new BoggleSolver(layouts[i]);
+                double best = Double.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        solver.getAllValidWords(board);
+                    }
+                    best = Math.min(best, (System.nanoTime() - start) / 1e9);
+                }
+                System.out.printf("  %-10s %-12s : %10.0f boards per second%n",
+                        option.getType(), names[i], BATCH / best);
+            }
+        }
+    }
+
+    // search throughput of the first layout while it is the only dictionary class the
+    // solver has seen, and again after the other layouts are searched in the same
+    // process, the getNextKey call of the solver is no longer bound to one class.
+    // Run it alone in a new process, it is not part of all benchmarks.
+    private static void dispatch(String filepath) {
+        System.out.println("Dictionary layouts loaded together : " + filepath);
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        BoggleDictionary first = dictionary;
+        String name = "26-way rows";
+        ArrayList<BoggleDictionary> others = new ArrayList<BoggleDictionary>();
+        if (BoggleDictionaryNarrow.fits(dictionary)) {
+            first = new BoggleDictionaryNarrow(dictionary);
+            name = "16-bit rows";
+            others.add(dictionary);
+        }
+        others.add(new BoggleDictionaryBitmap(dictionary));
+        others.add(new BoggleDictionaryDawg(filepath));
+        others.add(BoggleDictionary.reorder(dictionary, BoggleOptions.SUPERBIG));
+
+        BoggleSolver solver = new BoggleSolver(first);
+        double[] alone = new double[SIZES.length];
+        double[] together = new double[SIZES.length];
+        BoggleBoard[][] boards = new BoggleBoard[SIZES.length][BATCH];
+        for (int i = 0; i < SIZES.length; i++) {
+            for (int idx = 0; idx < BATCH; idx++) {
+                boards[i][idx] = new BoggleBoard(SIZES[i]);
+            }
+            alone[i] = bestTime(solver, boards[i]);
+        }
+        for (BoggleDictionary other : others) {
+            BoggleSolver otherSolver = new BoggleSolver(other);
+            for (int i = 0; i < SIZES.length; i++) {
+                bestTime(otherSolver, boards[i]);
+            }
+        }
+        for (int i = 0; i < SIZES.length; i++) {
+            together[i] = bestTime(solver, boards[i]);
+            System.out.printf("  %-10s %-12s alone : %10.0f   with %d other layouts : "
+                    + "%10.0f boards per second   ratio : %.2f%n", SIZES[i].getType(), name,
+                    BATCH / alone[i], others.size(), BATCH / together[i],
+                    alone[i] / together[i]);
+        }
+    }
+
+    // return the best time in seconds of the given solver to search all given boards
+    private static double bestTime(BoggleSolver solver, BoggleBoard[] boards) {
+        return bestTime(solver, boards, ROUNDS);
+    }
+
+    // return the best time in seconds of the given solver to search all given boards
+    // in the given number of rounds
+    private static double bestTime(BoggleSolver solver, BoggleBoard[] boards, int rounds) {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWordIds(board);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1e9);
+        }
+        return best;
+    }
+
+    // search throughput of the keys in build order and in cache locality order of
+    // each boggle option
+    private static void locality(String filepath) {
+        System.out.println("Key order of dictionary : " + filepath);
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        BoggleOptions[] options = {BoggleOptions.CLASSIC, BoggleOptions.SUPERBIG};
+        for (BoggleOptions option : options) {
+            BoggleDictionary reordered = BoggleDictionary.reorder(dictionary, option);
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            // alternate the dictionaries in each round, both have the same warm up
+            BoggleSolver[] solvers = {new BoggleSolver(dictionary),
+                new BoggleSolver(reordered)};
+            String[] names = {"build", "locality"};
+            double[] best = {Double.MAX_VALUE, Double.MAX_VALUE};
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < solvers.length; i++) {
+                    long start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        solvers[i].getAllValidWordIds(board);
+                    }
+                    best[i] = Math.min(best[i], (System.nanoTime() - start) / 1e9);
+                }
+            }
+            for (int i = 0; i < solvers.length; i++) {
+                System.out.printf("  %-10s %-10s : %10.0f boards per second%n",
+                        option.getType(), names[i], BATCH / best[i]);
+            }
+            System.out.printf("  %-10s ratio      : %10.2f%n", option.getType(),
+                    best[0] / best[1]);
+        }
+    }
+
+    // heap usage and search throughput of the heap and the memory mapped dictionary
+    private static void mapped(String filepath) {
+        System.out.println("Heap and memory mapped dictionary : " + filepath);
+        String mappedpath = filepath + ".benchmark.mapped";
+        long heap = usedMemory();
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        long heapDictionary = usedMemory() - heap;
+        if (!dictionary.writeMapped(mappedpath)) {
+            System.out.println("  - unable to write mapped file " + mappedpath);
+            return;
+        }
+        heap = usedMemory();
+        BoggleDictionaryMapped mapped = BoggleDictionaryMapped.map(mappedpath);
+        long heapMapped = usedMemory() - heap;
+        if (mapped == null) {
+            new File(mappedpath).delete();
+            return;
+        }
+
+        System.out.printf("  %-10s : dictionary heap %10d bytes%n", "heap", heapDictionary);
+        System.out.printf("  %-10s : dictionary heap %10d bytes   mapped file %10d bytes%n",
+                "mapped", heapMapped, mapped.getMappedSize());
+        // alternate the dictionaries in each round, both have the same warm up
+        BoggleSolver[] solvers = {new BoggleSolver(dictionary), new BoggleSolver(mapped)};
+        String[] names = {"heap", "mapped"};
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            // word ids of search only, and the String of words
+            double[] bestIds = {Double.MAX_VALUE, Double.MAX_VALUE};
+            double[] bestWords = {Double.MAX_VALUE, Double.MAX_VALUE};
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < solvers.length; i++) {
+                    long start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        solvers[i].getAllValidWordIds(board);
+                    }
+                    bestIds[i] = Math.min(bestIds[i], (System.nanoTime() - start) / 1e9);
+
+                    start = System.nanoTime();
+                    for (BoggleBoard board : boards) {
+                        solvers[i].getAllValidWords(board);
+                    }
+                    bestWords[i] = Math.min(bestWords[i], (System.nanoTime() - start) / 1e9);
+                }
+            }
+            for (int i = 0; i < solvers.length; i++) {
+                System.out.printf("  %-10s %-10s : %10.0f boards per second (word ids)"
+                        + "   %10.0f boards per second (words)%n", option.getType(), names[i],
+                        BATCH / bestIds[i], BATCH / bestWords[i]);
+            }
+        }
+        new File(mappedpath).delete();
+    }
+
+    // timing of single board parallel search by number of cores and board size
+    private static void parallel(String filepath) {
+        System.out.println("Timing parallel search of single board : " + filepath);
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWords(board);
+            }
+            long start = System.nanoTime();
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWords(board);
+            }
+            double sequential = (System.nanoTime() - start) / 1e9 / boards.length;
+            System.out.printf("  %-10s sequential         : %8.1f microseconds per board%n",
+                    option.getType(), sequential * 1e6);
+
+            for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWordsParallel(board, pool);
+                }
+                start = System.nanoTime();
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWordsParallel(board, pool);
+                }
+                double time = (System.nanoTime() - start) / 1e9 / boards.length;
+                pool.shutdown();
+                System.out.printf("  %-10s parallel %2d cores  : %8.1f microseconds per board"
+                        + "   speedup: %.2f%n", option.getType(), parallelism, time * 1e6,
+                        sequential / time);
+            }
+        }
+    }
+
+    // throughput of batch search of random boards by number of cores and board size
+    private static void batch(String filepath) {
+        System.out.println("Timing batch search of " + BATCH + " boards : " + filepath);
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = new BoggleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = new BoggleBoard(option);
+            }
+            double single = 0;
+            for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                solver.solveAll(Arrays.asList(boards), pool);
+                solver.solveAll(Arrays.asList(boards), pool);
+                double rate = solver.getBoardsPerSecond();
+                pool.shutdown();
+                if (parallelism == 1) {
+                    single = rate;
+                }
+                System.out.printf("  %-10s %2d cores : %10.0f boards per second   scaling: %.2f%n",
+                        option.getType(), parallelism, rate, rate / single);
+            }
+        }
+    }
+
+    // bytes allocated per search of getAllValidWords and the buffer version of
+    // getAllValidWordIds
+    private static void allocation(String filepath) {
+        System.out.println("Allocation per search : " + filepath);
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("  - thread allocation counter is not supported");
+            return;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        BoggleSolver solver = new BoggleSolver(new BoggleDictionary(filepath));
+        int[] buffer = new int[4096];
+        for (BoggleOptions option : SIZES) {
+            BoggleBoard[] boards = randomBoards(option);
+            for (int round = 0; round < ROUNDS; round++) {
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWords(board);
+                    solver.getAllValidWordIds(board, buffer);
+                }
+            }
+
+            long start = counter.getThreadAllocatedBytes(threadId);
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWords(board);
+            }
+            long list = counter.getThreadAllocatedBytes(threadId) - start;
+            start = counter.getThreadAllocatedBytes(threadId);
+            for (BoggleBoard board : boards) {
+                solver.getAllValidWordIds(board, buffer);
+            }
+            long array = counter.getThreadAllocatedBytes(threadId) - start;
+            System.out.printf("  %-10s list   : %8d bytes per search%n", option.getType(),
+                    list / boards.length);
+            System.out.printf("  %-10s buffer : %8d bytes per search%n", option.getType(),
+                    array / boards.length);
+        }
+    }
+
+    // return the number of bytes of heap in use after garbage collection
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // return an array of random boards of the given boggle option
+    private static BoggleBoard[] randomBoards(BoggleOptions option) {
+        BoggleBoard[] boards = new BoggleBoard[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            boards[i] = new BoggleBoard(option);
+        }
+        return boards;
+    }
+
+    // return the average of all rounds except the first one, first round if only one
+    private static double average(double[] times) {
+        if (times.length == 1) {
+            return times[0];
+        }
+        double sum = 0;
+        for (int i = 1; i < times.length; i++) {
+            sum += times[i];
+        }
+        return sum / (times.length - 1);
+    }
+
+    /**
+     * Main application to run the benchmarks.
+     *
+     * @param args optional dictionary file path, and benchmark name
+     */
+    public static void main(String[] args) {
+        String filepath = "dictionary" + SEPARATOR + DictionaryOptions.OSPD.getFilename();
+        if (args.length > 0) {
+            filepath = args[0];
+        }
+        String benchmark = "all";
+        if (args.length > 1) {
+            benchmark = args[1];
+        }
+
+        if (benchmark.equals("dispatch")) {
+            dispatch(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("loading")) {
+            loading(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("ingestion")) {
+            ingestion(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("search")) {
+            search(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("sink")) {
+            sink(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("score")) {
+            score(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("pruning")) {
+            pruning(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("bounds")) {
+            bounds(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("top")) {
+            top(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("path")) {
+            path(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("layout")) {
+            layout(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("locality")) {
+            locality(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("mapped")) {
+            mapped(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("parallel")) {
+            parallel(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("batch")) {
+            batch(filepath);
+        }
+        if (benchmark.equals("all") || benchmark.equals("allocation")) {
+            allocation(filepath);
+        }
+    }
+}
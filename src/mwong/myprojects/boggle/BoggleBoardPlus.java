@@ -18,20 +18,35 @@ public class BoggleBoardPlus {
     private boolean[] doubleLetter;
     private int[] letter2Idx;
 
+    private int offset;
+
     /**
      * Initializes Boggle Board cooperate with trie object and BoggleSolver.
      */
     BoggleBoardPlus(BoggleBoard board, int offset) {
+        this.offset = offset;
+        load(board);
+    }
+
+    /**
+     * Reload the given Boggle Board in place, the storage is reused if the board
+     * has the same size.
+     */
+    void load(BoggleBoard board) {
         int rows = board.getSize();
         int cols = board.getSize();
         int size = rows * cols;
-        faceIdx = new int[size];
-        doubleLetter = new boolean[size];
-        letter2Idx = new int[size];
+        if (faceIdx == null || faceIdx.length != size) {
+            faceIdx = new int[size];
+            doubleLetter = new boolean[size];
+            letter2Idx = new int[size];
+            nbrs = new int[size + 8 * cols * rows - 6 * cols - 6 * rows + 5];
+        }
         int idx = 0;
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < cols; col++) {
                 letter2Idx[idx] = -1;
+                doubleLetter[idx] = false;
                 if (board.getFirstLetter(row, col) == blank) {
                     faceIdx[idx] = -1;
                 } else {
@@ -45,8 +60,6 @@ public class BoggleBoardPlus {
                 idx++;
             }
         }
-
-        nbrs = new int[size + 8 * cols * rows - 6 * cols - 6 * rows + 5];
         buildNeighbors(rows, cols, size);
     }
 
@@ -0,0 +1,123 @@
+package mwong.myprojects.boggle;
+
+import java.util.Arrays;
+
+/**
+ * BoggleDiceSet is the dice set of a boggle option, it tells if a word can be spelled
+ * on any board of the option.  Each letter of the word needs it's own dice, a word is
+ * possible only if it's letters match distinct dices carrying the letter.  A double
+ * letters dice may cover 2 letters, the dice set of double letters dices only requires
+ * the letters not covered by them to match the other dices.  'QU' is the letter 'Q'
+ * as in the trie.
+ *
+ * <p>Dependencies : BoggleOptions.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDiceSet {
+    // bitmask of the dices carrying each letter, excluding double letters dices
+    private final long[] letterDices;
+    private final int dices;
+    private final int doubles;
+    // matching state: letter position of each dice, -1 if not in use
+    private final int[] owner;
+    private long seen;
+    private int[] letters;
+
+    /**
+     * Initializes the BoggleDiceSet of the given boggle option.
+     *
+     * @param option the given boggle option
+     * @throws IllegalArgumentException if more than 64 dices
+     */
+    public BoggleDiceSet(BoggleOptions option) {
+        if (option == null) {
+            throw new IllegalArgumentException("BoggleOptions is mandatory");
+        }
+        String[] faces = option.getDices();
+        if (faces.length > Long.SIZE) {
+            throw new IllegalArgumentException("Too many dices : " + faces.length);
+        }
+        letterDices = new long[26];
+        int count = 0;
+        for (int idx = 0; idx < faces.length; idx++) {
+            if (option.hasDoubleLetters(idx)) {
+                count++;
+                continue;
+            }
+            for (int face = 0; face < faces[idx].length(); face++) {
+                int ch = faces[idx].charAt(face) - 'A';
+                if (ch >= 0 && ch < 26) {
+                    letterDices[ch] |= 1L << idx;
+                }
+            }
+        }
+        dices = faces.length;
+        doubles = count;
+        owner = new int[dices];
+        letters = new int[16];
+    }
+
+    /**
+     * Returns the boolean represent the given word can be spelled on a board of the
+     * dice set, the word is in upper case letters.
+     *
+     * @param word the given String of word
+     * @return boolean represent the given word can be spelled on a board of the dice set
+     */
+    public boolean canSpell(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("Word is mandatory");
+        }
+        int length = 0;
+        for (int idx = 0; idx < word.length(); idx++) {
+            int ch = word.charAt(idx) - 'A';
+            if (ch < 0 || ch > 25) {
+                return false;
+            }
+            if (ch == 'Q' - 'A' && idx + 1 < word.length() && word.charAt(idx + 1) == 'U') {
+                idx++;
+            }
+            if (length == letters.length) {
+                letters = Arrays.copyOf(letters, length * 2);
+            }
+            letters[length++] = ch;
+        }
+        if (length > dices + doubles) {
+            return false;
+        }
+
+        // each double letters dice may cover 2 letters left unmatched
+        int allowed = doubles * 2;
+        Arrays.fill(owner, -1);
+        for (int pos = 0; pos < length; pos++) {
+            seen = 0;
+            if (!match(pos) && --allowed < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // find a dice for the letter at the given position, move the letters matched
+    // before to other dices if needed, each dice is tried once per letter; return
+    // true if the letter is matched
+    private boolean match(int pos) {
+        long candidates = letterDices[letters[pos]];
+        long free = candidates & ~seen;
+        while (free != 0) {
+            long bit = free & -free;
+            seen |= bit;
+            int dice = Long.numberOfTrailingZeros(bit);
+            if (owner[dice] == -1 || match(owner[dice])) {
+                owner[dice] = pos;
+                return true;
+            }
+            free = candidates & ~seen;
+        }
+        return false;
+    }
+}
@@ -1,17 +1,31 @@
 package mwong.myprojects.boggle;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * BoggleDictionary is the data type of dictionary for Boggle game.  It loads a list
  * of word from DictionaryOption or given filepath.  It convert into trie structure
  * and sort in dictionary order.
  *
- * <p>Dependencies : DictionaryOptions.java
+ * <p>Dependencies : BoggleDiceSet.java, BoggleDictionaryBuilder.java,
+ *                   BoggleDictionaryLayout.java, BoggleDictionaryNarrow.java,
+ *                   BoggleOptions.java, BoggleWordList.java, DictionaryOptions.java
  *
  * @author Meisze Wong
  *         www.linkedin.com/pub/macy-wong/46/550/37b/
@@ -19,26 +33,34 @@ import java.util.TreeSet;
  */
 
 public class BoggleDictionary {
-    private static final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     private static final int OFFSET = BoggleTrie26WayRadix.getOffset();
     private static final int IDX_Q = BoggleTrie26WayRadix.getIdxQ();
+    private static final int IDX_U = 'U' - OFFSET;
     private static final String SEPARATOR = System.getProperty("file.separator");
     private static String directory = "dictionary";
     private static final DictionaryOptions defaultDictionary = DictionaryOptions.OSPD;
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x42474C44;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_BLOCK = 1 << 16;
+    private static final int ALL_LETTERS = (1 << 26) - 1;
 
     private byte[] radix;
     private byte[] radixLength;
     private int[] radixIdx;
     private int[] trieR26;
-    private String[] words;
-    private int[] visited;
+    private byte[] wordBytes;
+    private int[] wordOffset;
+    private int[] wordId;
+    private int[] wordSlot;
+    private int[] letterMask;
+    private short[] maxWordLength;
     private boolean empty;
     private int hasWordGroup1;
     private int endTrie;
     private int hasWordGroup2;
     private int hasRadix;
     private int endRadix;
-    private int marker;
 
     /**
      *  Initializes the BoggleDictionary object using default dictionary.
@@ -53,9 +75,7 @@ public class BoggleDictionary {
      * @param option the given dictionary option
      */
     public BoggleDictionary(DictionaryOptions option) {
-        String filepath = directory + SEPARATOR + option.getFilename();
-        String[] dict = readDictionary(filepath);
-        loadDictionary(dict);
+        this(getFilepath(option));
     }
 
     /**
@@ -64,200 +84,527 @@ public class BoggleDictionary {
      * @param filepath the given String of file path
      */
     public BoggleDictionary(String filepath) {
-    	String[] dict = readDictionary(filepath);
-        loadDictionary(dict);
+        BoggleWordList list = readWordList(filepath);
+        BoggleDictionaryBuilder builder = new BoggleDictionaryBuilder(list.size(),
+                getBuildPool());
+        builder.addAll(list);
+        loadDictionary(builder);
     }
 
-    // load and sort all dictionary words in order
-    private String[] readDictionary(String filepath) {
-        empty = true;
-        marker = -1;
+    /**
+     * Initializes the BoggleDictionary object without storage.  Use by sub class of
+     * it's own storage of the trie and the words, it must override all functions
+     * of the trie and the words.
+     *
+     * @param empty the boolean represent the dictionary is empty
+     */
+    protected BoggleDictionary(boolean empty) {
+        this.empty = empty;
+    }
+
+    /**
+     * Initializes the BoggleDictionary object share the words, radix and flags of
+     * the given dictionary, except the storage of next trie set.  Use by sub class
+     * of other layout of next trie set, it must override getNextKey.
+     *
+     * @param dictionary the given BoggleDictionary object
+     */
+    protected BoggleDictionary(BoggleDictionary dictionary) {
+        radix = dictionary.radix;
+        radixLength = dictionary.radixLength;
+        radixIdx = dictionary.radixIdx;
+        wordBytes = dictionary.wordBytes;
+        wordOffset = dictionary.wordOffset;
+        wordId = dictionary.wordId;
+        wordSlot = dictionary.wordSlot;
+        letterMask = dictionary.letterMask;
+        maxWordLength = dictionary.maxWordLength;
+        empty = dictionary.empty;
+        hasWordGroup1 = dictionary.hasWordGroup1;
+        endTrie = dictionary.endTrie;
+        hasWordGroup2 = dictionary.hasWordGroup2;
+        hasRadix = dictionary.hasRadix;
+        endRadix = dictionary.endRadix;
+    }
+
+    // Initializes the BoggleDictionary object of the words of the given builder
+    private BoggleDictionary(BoggleDictionaryBuilder builder) {
+        loadDictionary(builder);
+    }
+
+    // Initializes the BoggleDictionary object of the same words of the given
+    // dictionary, move each key to the given new key; the new keys stay in the
+    // group of the keys, the radix and the words follow the order of new keys
+    private BoggleDictionary(BoggleDictionary dictionary, int[] newKey) {
+        empty = false;
+        hasWordGroup1 = dictionary.hasWordGroup1;
+        endTrie = dictionary.endTrie;
+        hasWordGroup2 = dictionary.hasWordGroup2;
+        hasRadix = dictionary.hasRadix;
+        endRadix = dictionary.endRadix;
+        int[] oldKey = new int[newKey.length];
+        for (int key = 0; key < newKey.length; key++) {
+            oldKey[newKey[key]] = key;
+        }
+
+        trieR26 = new int[dictionary.trieR26.length];
+        for (int key = 0; key < endTrie; key++) {
+            int from = oldKey[key] * 26;
+            for (int ch = 0; ch < 26; ch++) {
+                int nextKey = dictionary.trieR26[from + ch];
+                trieR26[key * 26 + ch] = nextKey == 0 ? 0 : newKey[nextKey];
+            }
+        }
+
+        // radix of the keys in order of new keys, position 0 is not in use
+        radix = new byte[dictionary.radix.length];
+        radixIdx = new int[dictionary.radixIdx.length];
+        radixLength = new byte[dictionary.radixLength.length];
+        int pos = 1;
+        for (int key = hasRadix + 1; key < endRadix; key++) {
+            int old = oldKey[key] - hasRadix;
+            int length = dictionary.radixLength[old];
+            System.arraycopy(dictionary.radix, dictionary.radixIdx[old], radix, pos, length);
+            radixIdx[key - hasRadix] = pos;
+            radixLength[key - hasRadix] = (byte) length;
+            pos += length;
+        }
+
+        // words in order of new keys, the word ids stay the same
+        wordBytes = new byte[dictionary.wordBytes.length];
+        wordOffset = new int[dictionary.wordOffset.length];
+        wordId = Arrays.copyOf(dictionary.wordId, dictionary.wordId.length);
+        wordSlot = new int[dictionary.wordSlot.length];
+        pos = 0;
+        for (int idx = 1; idx < wordId.length; idx++) {
+            int old = oldKey[idx + hasWordGroup1] - hasWordGroup1;
+            int start = dictionary.wordOffset[old];
+            int length = dictionary.wordOffset[old + 1] - start;
+            System.arraycopy(dictionary.wordBytes, start, wordBytes, pos, length);
+            pos += length;
+            wordOffset[idx + 1] = pos;
+            wordId[idx] = dictionary.wordId[old];
+            if (length > 0) {
+                wordSlot[wordId[idx]] = idx;
+            }
+        }
+
+        letterMask = new int[newKey.length];
+        maxWordLength = new short[newKey.length];
+        for (int key = 0; key < newKey.length; key++) {
+            letterMask[newKey[key]] = dictionary.letterMask[key];
+            maxWordLength[newKey[key]] = dictionary.maxWordLength[key];
+        }
+    }
+
+    // Initializes the BoggleDictionary object from the given snapshot stream,
+    // the snapshot already hold the final grouped layout and it's flags.
+    private BoggleDictionary(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("not a dictionary snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        hasWordGroup1 = in.readInt();
+        hasRadix = in.readInt();
+        hasWordGroup2 = in.readInt();
+        endTrie = in.readInt();
+        endRadix = in.readInt();
+
+        trieR26 = readInts(in);
+        radixIdx = readInts(in);
+        radixLength = new byte[in.readInt()];
+        in.readFully(radixLength);
+        radix = new byte[in.readInt()];
+        in.readFully(radix);
+
+        // Notes: words store the ASCII code, length 0 for no word
+        int size = in.readInt();
+        wordOffset = new int[size + 1];
+        byte[] buffer = new byte[size * 8 + 256];
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            int len = in.readUnsignedShort();
+            if (total + len > buffer.length) {
+                byte[] temp = new byte[Math.max(buffer.length * 2, total + len)];
+                System.arraycopy(buffer, 0, temp, 0, total);
+                buffer = temp;
+            }
+            in.readFully(buffer, total, len);
+            total += len;
+            wordOffset[i + 1] = total;
+        }
+        wordBytes = Arrays.copyOf(buffer, total);
+        wordSlot = readInts(in);
+        wordId = new int[size];
+        Arrays.fill(wordId, -1);
+        for (int id = 0; id < wordSlot.length; id++) {
+            wordId[wordSlot[id]] = id;
+        }
+        empty = false;
+        loadKeyBounds();
+    }
+
+    /**
+     * Returns the BoggleDictionary object of default dictionary, use the snapshot
+     * if it is up to date.
+     *
+     * @return BoggleDictionary object of default dictionary
+     */
+    public static BoggleDictionary load() {
+        return load(defaultDictionary);
+    }
+
+    /**
+     * Returns the BoggleDictionary object of the given dictionary option.  Use the
+     * snapshot next to the dictionary file if it is up to date, otherwise load the
+     * dictionary file and refresh the snapshot.  The next trie set use the narrowest
+     * index width of the keys.
+     *
+     * @param option the given dictionary option
+     * @return BoggleDictionary object of the given dictionary option
+     */
+    public static BoggleDictionary load(DictionaryOptions option) {
+        String filepath = getFilepath(option);
+        String snapshotpath = filepath + SNAPSHOT_EXTENSION;
+        File file = new File(filepath);
+        File snapshot = new File(snapshotpath);
+        if (snapshot.exists() && snapshot.lastModified() >= file.lastModified()) {
+            BoggleDictionary dictionary = loadSnapshot(snapshotpath);
+            if (dictionary != null) {
+                return narrow(dictionary);
+            }
+        }
+
+        BoggleDictionary dictionary = new BoggleDictionary(option);
+        if (file.exists()) {
+            dictionary.writeSnapshot(snapshotpath);
+        }
+        return narrow(dictionary);
+    }
+
+    /**
+     * Returns the BoggleDictionary of the same words with the keys in cache locality
+     * order of the given boggle option, see BoggleDictionaryLayout.  The keys visited
+     * on most boards of the option are packed together in each group, the radix
+     * and the words follow the same order; the word ids stay the same.  The sub
+     * class of other layout is returned as is.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @param option the given boggle option
+     * @return BoggleDictionary of the keys in cache locality order
+     */
+    public static BoggleDictionary reorder(BoggleDictionary dictionary,
+            BoggleOptions option) {
+        if (dictionary.getClass() != BoggleDictionary.class || dictionary.empty) {
+            return dictionary;
+        }
+        int[] base = {0, dictionary.hasWordGroup1 + 1, dictionary.hasRadix + 1,
+            dictionary.hasWordGroup2 + 1, dictionary.endTrie, dictionary.endRadix,
+            dictionary.hasWordGroup1 + dictionary.getWordIndexSize()};
+        return new BoggleDictionary(dictionary, BoggleDictionaryLayout.order(dictionary,
+                base, option));
+    }
+
+    /**
+     * Returns the BoggleDictionary of the words of the given dictionary that can be
+     * spelled on a board of the given boggle option, see BoggleDiceSet.  The words
+     * need more dices of a letter than the dice set has are removed.  The smaller trie
+     * is a new copy in the narrowest index width, see narrow(dictionary); it pays only
+     * if the dice set removes a large share of the words.  The word ids are the order
+     * of the remaining words.  Returns the given dictionary if no word can be spelled,
+     * the solver need at least one word.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @param option the given boggle option
+     * @return BoggleDictionary of the words can be spelled on the boggle option, or the
+     *         given dictionary if none
+     */
+    public static BoggleDictionary prune(BoggleDictionary dictionary, BoggleOptions option) {
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Dictionary is mandatory");
+        }
+        BoggleDiceSet dices = new BoggleDiceSet(option);
+        int count = dictionary.getWordCount();
+        BoggleDictionaryBuilder builder = new BoggleDictionaryBuilder(count);
+        int kept = 0;
+        for (int id = 0; id < count; id++) {
+            String word = dictionary.wordAt(id);
+            if (dices.canSpell(word)) {
+                builder.add(word);
+                kept++;
+            }
+        }
+        if (kept == 0) {
+            return dictionary;
+        }
+        return narrow(new BoggleDictionary(builder));
+    }
+
+    /**
+     * Returns the BoggleDictionary of the narrowest index width of the next trie
+     * set, BoggleDictionaryNarrow if all keys of the given dictionary fit in 16 bits,
+     * otherwise the given dictionary.  The sub class of other layout is returned
+     * as is.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @return BoggleDictionary of the narrowest index width
+     */
+    public static BoggleDictionary narrow(BoggleDictionary dictionary) {
+        if (dictionary.getClass() == BoggleDictionary.class
+                && BoggleDictionaryNarrow.fits(dictionary)) {
+            return new BoggleDictionaryNarrow(dictionary);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the BoggleDictionary object restored from the given snapshot file,
+     * null if the snapshot is missing, corrupted or in other version.
+     *
+     * @param filepath the given String of snapshot file path
+     * @return BoggleDictionary object restored from the given snapshot file
+     */
+    public static BoggleDictionary loadSnapshot(String filepath) {
         File file = new File(filepath);
         if (!file.exists()) {
-            System.out.println(filepath + " not found, restore to default setting.");
-            return BoggleDictionaryDefault.getWord();
-        }
-
-        TreeSet<String> lines = new TreeSet<String>();
-        try (BufferedReader buf = new BufferedReader(new FileReader(filepath))) {
-            String line = buf.readLine();
-            while (line != null) {
-                line = line.trim().toUpperCase();
-                if (line.length() > 2) {
-                    boolean skip = false;
-                    for (int idx = 0; idx < line.length(); idx++) {
-                        if (alphabet.indexOf(line.charAt(idx)) == -1) {
-                            skip = true;
-                            break;
-                        }
-                    }
-                    if (!skip) {
-                        lines.add(line);
-                    }
-                }
-                line = buf.readLine();
+            System.out.println(filepath + " not found.");
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(file)), crc))) {
+            BoggleDictionary dictionary = new BoggleDictionary(in);
+            long checksum = crc.getValue();
+            if (in.readLong() != checksum) {
+                System.out.println(filepath + " checksum mismatch, snapshot ignored.");
+                return null;
             }
+            return dictionary;
         } catch (IOException ex) {
-            ex.printStackTrace();
+            System.out.println(filepath + " " + ex.getMessage() + ", snapshot ignored.");
             return null;
         }
+    }
 
-        if (lines.size() == 0) {
-            return null;
+    /**
+     * Writes the compiled dictionary to the given snapshot file.  It stores the
+     * final trie arrays and group flags, so loadSnapshot skip reading the word
+     * list and building the trie.
+     *
+     * @param filepath the given String of snapshot file path
+     * @return boolean represent the snapshot has been written
+     */
+    public boolean writeSnapshot(String filepath) {
+        if (empty) {
+            return false;
         }
 
-        String[] dict = new String[lines.size()];
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filepath)), crc))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(hasWordGroup1);
+            out.writeInt(hasRadix);
+            out.writeInt(hasWordGroup2);
+            out.writeInt(endTrie);
+            out.writeInt(endRadix);
+
+            writeInts(out, getTrieRows());
+            writeInts(out, radixIdx);
+            out.writeInt(radixLength.length);
+            out.write(radixLength);
+            out.writeInt(radix.length);
+            out.write(radix);
+
+            out.writeInt(wordOffset.length - 1);
+            for (int i = 0; i < wordOffset.length - 1; i++) {
+                out.writeShort(wordOffset[i + 1] - wordOffset[i]);
+                out.write(wordBytes, wordOffset[i], wordOffset[i + 1] - wordOffset[i]);
+            }
+            writeInts(out, wordSlot);
+            out.flush();
+            out.writeLong(crc.getValue());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    // read the length prefixed integer array of snapshot in blocks
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        byte[] block = new byte[SNAPSHOT_BLOCK];
+        IntBuffer buffer = ByteBuffer.wrap(block).asIntBuffer();
         int idx = 0;
-        for (String str : lines) {
-            dict[idx++] = str;
+        while (idx < values.length) {
+            int count = Math.min(values.length - idx, SNAPSHOT_BLOCK / 4);
+            in.readFully(block, 0, count * 4);
+            buffer.position(0);
+            buffer.get(values, idx, count);
+            idx += count;
         }
-        return dict;
+        return values;
     }
 
-    // Read all words from the dictionary file and load into trie object,
-    // retrieve trie components and reorder it and set a flag of each group of words.
-    private void loadDictionary(String[] dict) {
-        if (dict == null || dict.length < 50) {
-        	System.out.println("Too few words in dictionary, restore to defalut dictionary.");
-            dict = BoggleDictionaryDefault.getWord();
+    // write the length prefixed integer array of snapshot in blocks
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        byte[] block = new byte[SNAPSHOT_BLOCK];
+        IntBuffer buffer = ByteBuffer.wrap(block).asIntBuffer();
+        int idx = 0;
+        while (idx < values.length) {
+            int count = Math.min(values.length - idx, SNAPSHOT_BLOCK / 4);
+            buffer.position(0);
+            buffer.put(values, idx, count);
+            out.write(block, 0, count * 4);
+            idx += count;
         }
+    }
 
-        // load all words in trie the retrieve it's components
-        BoggleTrie26WayRadix trie = new BoggleTrie26WayRadix(dict.length);
-        for (String key : dict) {
-            if (key != null && key.length() > 2) {
-                trie.put(key);
-            }
+    // return the file path of the dictionary file of the given dictionary option
+    static String getFilepath(DictionaryOptions option) {
+        return directory + SEPARATOR + option.getFilename();
+    }
+
+    // load and sort all dictionary words in order
+    static String[] readDictionary(String filepath) {
+        return readWordList(filepath).toArray();
+    }
+
+    // load all dictionary words into a byte arena, sort them and remove the
+    // duplicate words, restore to default dictionary if the file is missing or
+    // too few words
+    private static BoggleWordList readWordList(String filepath) {
+        File file = new File(filepath);
+        if (!file.exists()) {
+            System.out.println(filepath + " not found, restore to default setting.");
+            return defaultWordList();
+        }
+
+        BoggleWordList list;
+        try {
+            list = BoggleWordList.read(filepath);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.out.println("Too few words in dictionary, restore to defalut dictionary.");
+            return defaultWordList();
+        }
+
+        list.sort(getBuildPool());
+        if (list.size() < 50) {
+            System.out.println("Too few words in dictionary, restore to defalut dictionary.");
+            return defaultWordList();
+        }
+        return list;
+    }
+
+    // return the sorted word list of default dictionary
+    private static BoggleWordList defaultWordList() {
+        BoggleWordList list = BoggleWordList.of(BoggleDictionaryDefault.getWord());
+        list.sort(null);
+        return list;
+    }
+
+    // return the common ForkJoinPool to build the shards of first characters in
+    // parallel, null if single processor
+    private static ForkJoinPool getBuildPool() {
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            return ForkJoinPool.commonPool();
         }
+        return null;
+    }
 
-        if (trie.isEmpty()) {
+    // emit the final grouped layout of the builder and set a flag of each group
+    // of words, see BoggleDictionary.java - Details
+    private void loadDictionary(BoggleDictionaryBuilder builder) {
+        builder.build();
+        if (builder.isEmpty()) {
             empty = true;
             return;
         }
         empty = false;
-        int[][] tempTrie26 = trie.getTrieR26();
-        int[] tempRadixPos = trie.getRadixPos();
-        String[] tempWords  = trie.getValues();
-        int trieCounter = trie.getTrieCounter();
-
-        // count the entries as describe below:
-        //          Has next trie   is a word   has radix       flags
-        // group1      Yes            No          No            hasWord1
-        // group2      Yes            Yes         No            hasRadix
-        // group3      Yes            No          Yes           hasWord2
-        // group4      Yes            Yes         Yes           endTrie
-        // group5      No             Yes         Yes           endRadix
-        // remaining   No             Yes         No
-        int group1 = 0;
-        int group2 = 0;
-        int group3 = 0;
-        int group4 = 0;
-        int group5 = 0;
-        for (int i = 26; i < trieCounter; i++) {
-            if (tempTrie26[i] != null) {
-                if (tempRadixPos[i] > 0) {
-                    if (tempWords[i] == null) {
-                        group3++;
-                    } else {
-                        group4++;
-                    }
-                } else {
-                    if (tempWords[i] == null) {
-                        group1++;
-                    } else {
-                        group2++;
+        int[] flags = builder.getFlags();
+        hasWordGroup1 = flags[0];
+        hasRadix = flags[1];
+        hasWordGroup2 = flags[2];
+        endTrie = flags[3];
+        endRadix = flags[4];
+        trieR26 = builder.getTrieR26();
+        radix = builder.getRadix();
+        radixIdx = builder.getRadixIdx();
+        radixLength = builder.getRadixLength();
+        wordBytes = builder.getWordBytes();
+        wordOffset = builder.getWordOffset();
+        wordId = builder.getWordId();
+        wordSlot = builder.getWordSlot();
+        loadKeyBounds();
+    }
+
+    // set the mask of letters required by all words below each key: the letters
+    // of it's radix and the letters every completion after the radix must use.
+    // The mask is 0 if the key is a word, all letters if no completion.  Set the
+    // maximum length of the words of each key and below, 0 if no word.  Visit
+    // the keys in preorder from the roots, and fill the masks in reverse order,
+    // the children before their parent.
+    private void loadKeyBounds() {
+        int size = hasWordGroup1 + getWordIndexSize();
+        letterMask = new int[size];
+        maxWordLength = new short[size];
+        int[] preorder = new int[size];
+        int count = 0;
+        int[] stack = new int[size];
+        int top = 0;
+        for (int key = 0; key < 26; key++) {
+            stack[top++] = key;
+        }
+        while (top > 0) {
+            int key = stack[--top];
+            preorder[count++] = key;
+            if (key < endTrie) {
+                for (int ch = 0; ch < 26; ch++) {
+                    int nextKey = trieR26[key * 26 + ch];
+                    if (nextKey != 0) {
+                        stack[top++] = nextKey;
                     }
                 }
-            } else if (tempRadixPos[i] > 0) {
-                group5++;
             }
         }
 
-        // initial the reset value by group, reorder the whole trie,
-        // copy radix storage, and set the flags/indicators
-        int reset1 = 26;
-        int reset2 = reset1 + group1;
-        hasWordGroup1 = reset2 - 1;
-        int reset3 = reset2 + group2;
-        hasRadix = reset3 - 1;
-        int reset4 = reset3 + group3;
-        hasWordGroup2 = reset4 - 1;
-        int reset5 = reset4 + group4;
-        endTrie = reset5;
-        int reset6 = reset5 + group5;
-        endRadix = reset6;
-
-        int[][]sortedTrie26 = new int[trieCounter][26];
-        words = new String[trieCounter - hasWordGroup1];
-        visited = new int[trieCounter - hasWordGroup1];
-        radix = new byte[trie.getRadixSize()];
-        System.arraycopy(trie.getRadix(), 0, radix, 0, trie.getRadixSize());
-        radixIdx = new int[reset6 - reset3 + 1];
-        radixLength = new byte[reset6 - reset3 + 1];
-        byte[] tempRadixLength = trie.getRadixLength();
-
-        int[] ref = new int[trieCounter];
-        for (int trieIdx = 0; trieIdx < trieCounter; trieIdx++) {
-            if (tempTrie26[trieIdx] != null) {
-                for (int chIdx = 0; chIdx < 26; chIdx++) {
-                    int nextTrieIdx = tempTrie26[trieIdx][chIdx];
-
-                    if (nextTrieIdx > 0) {
-                        if (tempTrie26[nextTrieIdx] != null) {
-                            if (tempRadixPos[nextTrieIdx] == 0) {
-                                if (tempWords[nextTrieIdx] == null) {
-                                    // 1st set:    Trie-Y    Word-N    Radix-N
-                                    sortedTrie26[trieIdx][chIdx] = reset1;
-                                    ref[reset1++] = nextTrieIdx;
-                                } else {
-                                    // 2nd set:    Trie-Y    Word-Y    Radix-N
-                                    sortedTrie26[trieIdx][chIdx] = reset2;
-                                    words[reset2 - hasWordGroup1] = tempWords[nextTrieIdx];
-                                    ref[reset2++] = nextTrieIdx;
-                                }
-                            } else {
-                                if (tempWords[nextTrieIdx] == null) {
-                                    // 3rd set:    Trie-Y    Word-N    Radix-Y
-                                    sortedTrie26[trieIdx][chIdx] = reset3;
-                                    radixIdx[reset3 - hasRadix] = tempRadixPos[nextTrieIdx];
-                                    radixLength[reset3 - hasRadix] = tempRadixLength[nextTrieIdx];
-                                    ref[reset3++] = nextTrieIdx;
-                                } else {
-                                    // 4th set:    Trie-Y    Word-Y    Radix-Y
-                                    sortedTrie26[trieIdx][chIdx] = reset4;
-                                    radixIdx[reset4 - hasRadix] = tempRadixPos[nextTrieIdx];
-                                    radixLength[reset4 - hasRadix] = tempRadixLength[nextTrieIdx];
-                                    words[reset4 - hasWordGroup1] = tempWords[nextTrieIdx];
-                                    ref[reset4++] = nextTrieIdx;
-                                }
-                            }
-                        } else {
-                            if (tempRadixPos[nextTrieIdx] > 0) {
-                                // 5th set:    Trie-N    Word-Y    Radix-Y
-                                sortedTrie26[trieIdx][chIdx] = reset5;
-                                radixIdx[reset5 - hasRadix] = tempRadixPos[nextTrieIdx];
-                                radixLength[reset5 - hasRadix] = tempRadixLength[nextTrieIdx];
-                                words[reset5 - hasWordGroup1] = tempWords[nextTrieIdx];
-                                ref[reset5++] = nextTrieIdx;
-                            } else {
-                                // 6th set:    Trie-N    Word-N    Radix-N
-                                sortedTrie26[trieIdx][chIdx] = reset6;
-                                words[reset6 - hasWordGroup1] = tempWords[nextTrieIdx];
-                                ref[reset6++] = nextTrieIdx;
-                            }
+        while (count > 0) {
+            int key = preorder[--count];
+            int mask = 0;
+            int length = 0;
+            if (key <= hasWordGroup1 || (key > hasRadix && key <= hasWordGroup2)) {
+                mask = ALL_LETTERS;
+            } else {
+                length = getWordLength(key - hasWordGroup1);
+            }
+            if (key < endTrie) {
+                for (int ch = 0; ch < 26; ch++) {
+                    int nextKey = trieR26[key * 26 + ch];
+                    if (nextKey != 0) {
+                        if (mask != 0) {
+                            mask &= 1 << ch | letterMask[nextKey];
                         }
+                        length = Math.max(length, maxWordLength[nextKey]);
                     }
                 }
             }
-        }
-
-        // copy the sorted order trie to final copy in 1 dimension array
-        trieR26 = new int[endTrie * 26];
-        for (int i = 0; i < 26; i++) {
-            System.arraycopy(sortedTrie26[i], 0, trieR26, i * 26, 26);
-        }
-        for (int i = 26; i < endTrie; i++) {
-            System.arraycopy(sortedTrie26[ref[i]], 0, trieR26, i * 26, 26);
+            maxWordLength[key] = (short) Math.min(length, Short.MAX_VALUE);
+            if (hasRadix(key)) {
+                int pos = radixIdx[key - hasRadix];
+                int end = pos + radixLength[key - hasRadix];
+                while (pos < end) {
+                    mask |= 1 << (radix[pos++] - OFFSET);
+                }
+            }
+            letterMask[key] = mask;
         }
     }
 
@@ -289,79 +636,103 @@ public class BoggleDictionary {
     }
 
     /**
-     *  Returns the boolean represent the trie contains the given string key.
+     *  Returns the boolean represent the trie contains the given string key, in upper
+     *  or lower case.  False if any character is not a letter A - Z.
      *
      *  @param key the given string
      *  @return boolean represent the trie contains the given string key
      */
     protected boolean contains(String key) {
+        return indexOf(key) > 0;
+    }
+
+    // return the word index of the given word in upper or lower case, 0 if not in
+    // the dictionary or any character is not a letter
+    private int indexOf(String key) {
         if (key.isEmpty() || key.length() < 3) {
-            return false;
+            return 0;
         }
         int depth = 0;
         int len = key.length();
 
-        int trieIdx = key.charAt(depth++) - OFFSET;
+        int trieIdx = charIndex(key, depth++);
+        if (trieIdx == -1) {
+            return 0;
+        }
         if (trieIdx == IDX_Q) {
-            if (key.charAt(depth++) != 'U') {
-                return false;
+            if (charIndex(key, depth++) != IDX_U) {
+                return 0;
             }
         }
-        int chIdx = key.charAt(depth++) - OFFSET;
-        trieIdx = trieR26[trieIdx * 26 + chIdx];
+        if (depth >= len) {
+            return 0;
+        }
+        int chIdx = charIndex(key, depth++);
+        if (chIdx == -1) {
+            return 0;
+        }
+        int num = 0;
+        int nextIdx = getNextKey(trieIdx, chIdx);
 
-        while (trieIdx > 0) {
+        while (nextIdx > 0) {
+            num += getNextNumber(trieIdx, chIdx);
+            trieIdx = nextIdx;
             if (chIdx == IDX_Q) {
-                if (!(depth < len && key.charAt(depth++) == 'U')) {
-                    return false;
+                if (!(depth < len && charIndex(key, depth++) == IDX_U)) {
+                    return 0;
                 }
             }
 
-            if (trieIdx > hasRadix && trieIdx < endRadix) {
-                // Notes: radix storage store the ASCII code
-                int pos = radixIdx[trieIdx - hasRadix];
-                int radixLen = radixLength[trieIdx - hasRadix] - 1;
+            if (hasRadix(trieIdx)) {
+                int pos = getRadixInit(trieIdx);
+                int radixLen = getRadixLength(trieIdx) - 1;
                 do {
                     if (depth >= len) {
-                        return false;
+                        return 0;
                     }
-                    int ascii = key.charAt(depth++);
-                    if (ascii != radix[pos++]) {
-                        return false;
+                    int ch = charIndex(key, depth++);
+                    if (ch != getNextCharIndex(pos++)) {
+                        return 0;
                     }
-                    if (ascii == 'Q') {
-                        if (!(depth < len && key.charAt(depth++) == 'U')) {
-                            return false;
+                    if (ch == IDX_Q) {
+                        if (!(depth < len && charIndex(key, depth++) == IDX_U)) {
+                            return 0;
                         }
                     }
                 } while (--radixLen > -1);
-                if (depth == len) {
-                    return trieIdx > hasWordGroup2;
-                }
-            } else {
-                if (depth == len) {
-                    return trieIdx > hasWordGroup1;
-                }
+            }
+            if (depth == len) {
+                return getWordIndex(trieIdx, num);
             }
 
             // continue search
-            if (trieIdx < endTrie) {
-                chIdx = key.charAt(depth++) - OFFSET;
-                trieIdx = trieR26[trieIdx * 26 + chIdx];
+            if (hasTrie(trieIdx)) {
+                chIdx = charIndex(key, depth++);
+                if (chIdx == -1) {
+                    return 0;
+                }
+                nextIdx = getNextKey(trieIdx, chIdx);
             } else {
-                return false;
+                return 0;
             }
         }
-        return false;
+        return 0;
     }
 
-    protected void updateMarker() {
-        marker += 2;
+    // return the character index of the upper case letter of the given position
+    // of the given string, -1 if it is not a letter A - Z
+    static int charIndex(String key, int pos) {
+        int ch = Character.toUpperCase(key.charAt(pos)) - OFFSET;
+        if (ch < 0 || ch > 25) {
+            return -1;
+        }
+        return ch;
     }
 
     TreeSet<String> getAllWords(int minLength) {
         TreeSet<String> set = new TreeSet<String>();
-        for (String str : words) {
+        for (int wordIdx = 1; wordIdx < getWordIndexSize(); wordIdx++) {
+            String str = getWord(wordIdx);
             if (str != null && str.length() >= minLength) {
                 set.add(str);
             }
@@ -370,13 +741,67 @@ public class BoggleDictionary {
     }
 
     /**
-     *  Returns the number of next key in trie, 0 if not exists.
+     *  Returns the number of next key in trie of the given character index,
+     *  0 if not exists.
      *
      *  @param key the number of current key
+     *  @param ch the number of character index
      *  @return number of next key in trie, 0 if not exists
      */
-    protected int getNextKey(int key) {
-        return trieR26[key];
+    protected int getNextKey(int key, int ch) {
+        return trieR26[key * 26 + ch];
+    }
+
+    /**
+     *  Returns the number of keys has next trie set, the upper bound of the key
+     *  of getNextKey.
+     *
+     *  @return number of keys has next trie set
+     */
+    protected int getTrieSize() {
+        return endTrie;
+    }
+
+    /**
+     *  Returns the number of bytes of the storage of next trie set.
+     *
+     *  @return number of bytes of the storage of next trie set
+     */
+    protected long getTrieMemory() {
+        return trieR26 == null ? 0 : trieR26.length * 4L;
+    }
+
+    /**
+     * Writes the compiled dictionary to the given file in the layout of
+     * BoggleDictionaryMapped.  The file can be mapped by many processes and share
+     * the same physical pages.
+     *
+     * @param filepath the given String of mapped file path
+     * @return boolean represent the mapped file has been written
+     */
+    public boolean writeMapped(String filepath) {
+        if (empty) {
+            return false;
+        }
+        int[] flags = {hasWordGroup1, hasRadix, hasWordGroup2, endTrie, endRadix};
+        return BoggleDictionaryMapped.write(filepath, flags, getTrieRows(), radixIdx,
+                radixLength, radix, wordOffset, wordBytes, wordId, wordSlot, letterMask,
+                maxWordLength);
+    }
+
+    // return the 26-way trie rows of all keys has next trie set, rebuild it from
+    // getNextKey if the sub class has it's own layout
+    private int[] getTrieRows() {
+        if (trieR26 != null) {
+            return trieR26;
+        }
+        int[] rows = new int[endTrie * 26];
+        for (int key = 0; key < endTrie; key++) {
+            for (int ch = 0; ch < 26; ch++) {
+                rows[key * 26 + ch] = getNextKey(key, ch);
+            }
+        }
+        return rows;
     }
 
     /**
@@ -430,54 +855,179 @@ public class BoggleDictionary {
     }
 
     /**
-     *  Returns the boolean represent the key with radix is not a visited word.
+     *  Returns the number of words before the next key of the given character index,
+     *  always 0 as the word index is based on the key only.  Sub class of shared
+     *  keys count the word index along the path.
      *
-     *  @param key the number of current key with radix
-     *  @param marker the number of current marker
-     *  @return boolean represent the key with radix is not a visited word
+     *  @param key the number of current key
+     *  @param ch the number of character index
+     *  @return number of words before the next key of the given character index
      */
-    protected String getWordRadix(int key) {
-        if (key <= hasWordGroup2) {
-            return null;
+    protected int getNextNumber(int key, int ch) {
+        return 0;
+    }
+
+    /**
+     *  Returns the 26 bits mask of letters that every word below the given key must
+     *  use from the key, the letters of it's radix and the letters every completion
+     *  after the radix must use.  A word below the key is impossible on a board
+     *  without any of these letters.  Always 0 if the dictionary has no mask.
+     *
+     *  @param key the number of current key
+     *  @return 26 bits mask of letters that every word below the given key must use
+     */
+    protected int getLetterMask(int key) {
+        return letterMask == null ? 0 : letterMask[key];
+    }
+
+    /**
+     *  Returns the number of maximum length of the words of the given key and below,
+     *  the longest word the search can reach from the key.  0 if no word, always
+     *  Integer.MAX_VALUE if the dictionary has no bound.
+     *
+     *  @param key the number of current key
+     *  @return number of maximum length of the words of the given key and below
+     */
+    protected int getMaxWordLength(int key) {
+        return maxWordLength == null ? Integer.MAX_VALUE : maxWordLength[key];
+    }
+
+    /**
+     *  Returns the number of maximum length of the words the search can reach from
+     *  the given key entered at the given length.  Each key of the trie has one depth,
+     *  the length is not needed; a dictionary of shared suffixes add the longest
+     *  completion of the key to the length.
+     *
+     *  @param key the number of current key
+     *  @param length the number of the length of the path entered the key
+     *  @return number of maximum length of the words reachable from the given key
+     */
+    protected int getMaxWordLength(int key, int length) {
+        return getMaxWordLength(key);
+    }
+
+    // return the letter masks of each key, null if the dictionary has no mask
+    int[] getLetterMasks() {
+        return letterMask;
+    }
+
+    // return the maximum word length of each key, null if the dictionary has no bound
+    short[] getMaxWordLengths() {
+        return maxWordLength;
+    }
+
+    /**
+     *  Returns the number of word index of the key at end of it's radix, 0 if not a word.
+     *
+     *  @param key the number of current key
+     *  @param num the number of words before the key counted by getNextNumber
+     *  @return number of word index of the key at end of it's radix, 0 if not a word
+     */
+    protected int getWordIndex(int key, int num) {
+        if (key <= hasWordGroup1 || (key > hasRadix && key <= hasWordGroup2)) {
+            return 0;
         }
-        int refKey = key - hasWordGroup1;
-        if (visited[refKey] == marker) {
+        return key - hasWordGroup1;
+    }
+
+    /**
+     *  Returns the String of word of the given word index, null if not a word.
+     *
+     *  @param wordIdx the number of word index
+     *  @return String of word of the given word index
+     */
+    protected String getWord(int wordIdx) {
+        int start = wordOffset[wordIdx];
+        int len = wordOffset[wordIdx + 1] - start;
+        if (len == 0) {
             return null;
         }
-        visited[refKey] = marker;
-        return words[refKey];
+        return new String(wordBytes, start, len, StandardCharsets.ISO_8859_1);
     }
 
     /**
-     *  Returns the boolean represent the key without radix is not a visited word.
+     *  Returns the number of word id of the given word index.
      *
-     *  @param key the number of current key without radix
-     *  @param marker the number of current marker
-     *  @return boolean represent the key without radix is not a visited word
+     *  @param wordIdx the number of word index
+     *  @return number of word id of the given word index
      */
-    protected String getWord(int key) {
-        int refKey = key - hasWordGroup1;
-        if (refKey <= 0) {
-            return null;
+    protected int getWordIdByIndex(int wordIdx) {
+        return wordId[wordIdx];
+    }
+
+    /**
+     *  Returns the number of word index of the given word id.
+     *
+     *  @param id the number of word id
+     *  @return number of word index of the given word id
+     */
+    protected int getWordIndexById(int id) {
+        return wordSlot[id];
+    }
+
+    /**
+     *  Returns the String of word of the given word id.  Word ids are assigned in
+     *  lexicographic order from 0, so sort by word id is sort by word.
+     *
+     *  @param id the number of word id
+     *  @return String of word of the given word id
+     */
+    public String wordAt(int id) {
+        if (id < 0 || id >= getWordCount()) {
+            throw new IllegalArgumentException("Invalid word id : " + id);
         }
-        if (visited[refKey] == marker) {
-            return null;
+        return getWord(getWordIndexById(id));
+    }
+
+    /**
+     *  Returns the number of word id of the given word in upper or lower case, -1 if
+     *  it is not in the dictionary or it has any character not a letter A - Z.
+     *
+     *  @param word the given string
+     *  @return number of word id of the given word, -1 if not in the dictionary
+     */
+    public int getWordId(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("Word is mandatory");
+        }
+        if (isEmpty()) {
+            return -1;
         }
-        visited[refKey] = marker;
-        return words[refKey];
+        int wordIdx = indexOf(word);
+        if (wordIdx == 0) {
+            return -1;
+        }
+        return getWordIdByIndex(wordIdx);
     }
 
     /**
-     *  Returns the boolean represent the key of 2 boggle dices with Qu.
+     *  Returns the number of words in the dictionary, the upper bound of word id.
      *
-     *  @param key the number of current key of 2 boggle dices with Qu
-     *  @param marker the number of current marker
-     *  @return boolean represent the key of 2 boggle dices with Qu is not a visited word
+     *  @return number of words in the dictionary
      */
-    protected String getWordQ2(int key) {
-        if (key > hasRadix) {
-            return null;
+    public int getWordCount() {
+        if (empty) {
+            return 0;
         }
-        return getWord(key);
+        return wordSlot.length;
+    }
+
+    /**
+     *  Returns the number of length of the word of the given word index.
+     *
+     *  @param wordIdx the number of word index
+     *  @return number of length of the word of the given word index
+     */
+    protected int getWordLength(int wordIdx) {
+        return wordOffset[wordIdx + 1] - wordOffset[wordIdx];
+    }
+
+    /**
+     *  Returns the number of word index slots, the upper bound of word index.
+     *
+     *  @return number of word index slots
+     */
+    protected int getWordIndexSize() {
+        return wordOffset.length - 1;
     }
 }
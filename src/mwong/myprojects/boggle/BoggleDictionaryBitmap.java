@@ -0,0 +1,84 @@
+package mwong.myprojects.boggle;
+
+/**
+ * BoggleDictionaryBitmap is the BoggleDictionary with compact storage of next trie
+ * set.  Instead of 26 integers per key, each key store a 26 bits mask of it's
+ * existing characters and the position of it's first child; the children are
+ * store in a dense array, the position of the child is counted by the bits of
+ * the mask before the character.
+ *
+ * <p>Dependencies : BoggleDictionary.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryBitmap extends BoggleDictionary {
+    // nodes layout: mask of existing characters, position of first child
+    private int[] nodes;
+    private int[] children;
+
+    /**
+     * Initializes the BoggleDictionaryBitmap object from the given BoggleDictionary,
+     * share the words and radix storage.
+     *
+     * @param dictionary the given BoggleDictionary object
+     */
+    public BoggleDictionaryBitmap(BoggleDictionary dictionary) {
+        super(dictionary);
+        int size = getTrieSize();
+        int count = 0;
+        for (int key = 0; key < size; key++) {
+            for (int ch = 0; ch < 26; ch++) {
+                if (dictionary.getNextKey(key, ch) != 0) {
+                    count++;
+                }
+            }
+        }
+
+        nodes = new int[size * 2];
+        children = new int[count];
+        count = 0;
+        for (int key = 0; key < size; key++) {
+            int mask = 0;
+            nodes[key * 2 + 1] = count;
+            for (int ch = 0; ch < 26; ch++) {
+                int nextKey = dictionary.getNextKey(key, ch);
+                if (nextKey != 0) {
+                    mask |= 1 << ch;
+                    children[count++] = nextKey;
+                }
+            }
+            nodes[key * 2] = mask;
+        }
+    }
+
+    /**
+     *  Returns the number of next key in trie of the given character index,
+     *  0 if not exists.
+     *
+     *  @param key the number of current key
+     *  @param ch the number of character index
+     *  @return number of next key in trie, 0 if not exists
+     */
+    @Override
+    protected int getNextKey(int key, int ch) {
+        int mask = nodes[key * 2];
+        int bit = 1 << ch;
+        if ((mask & bit) == 0) {
+            return 0;
+        }
+        return children[nodes[key * 2 + 1] + Integer.bitCount(mask & (bit - 1))];
+    }
+
+    /**
+     *  Returns the number of bytes of the storage of next trie set.
+     *
+     *  @return number of bytes of the storage of next trie set
+     */
+    @Override
+    protected long getTrieMemory() {
+        return (nodes.length + children.length) * 4L;
+    }
+}
@@ -0,0 +1,749 @@
+package mwong.myprojects.boggle;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BoggleDictionaryBuilder is the single pass builder of the BoggleDictionary storage
+ * from words in sorted order.  Only the path of the last word is open, once the
+ * next word leaves a prefix, the keys of that prefix are finished and stored as
+ * compact records, no 26-way row is allocated until the final layout.
+ *
+ * <p>The subtree of each first character is independent, it is built by it's own
+ * shard.  Each finished key is assigned a rank in it's group of it's shard (see
+ * BoggleDictionary.java - Details), build() counts the groups of all shards and
+ * emits the grouped and flattened trie, radix and words storage directly, the keys
+ * of each group are in order of first character.  With a ForkJoinPool, addAll
+ * builds the shards of a sorted BoggleWordList in parallel.  The words are restored
+ * from the trie paths, the builder does not keep the String of words.
+ *
+ * <p>Dependencies : BoggleTrie26WayRadix.java, BoggleWordList.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryBuilder {
+    private static final int OFFSET = BoggleTrie26WayRadix.getOffset();
+    private static final int IDX_Q = BoggleTrie26WayRadix.getIdxQ();
+    private static final int MAX_RADIX = Byte.MAX_VALUE;
+    private static final int NONE = -1;
+
+    private Shard[] shards;
+    private ForkJoinPool pool;
+    private byte[] last;
+    private int lastLength;
+    private boolean built;
+
+    // final layout
+    private int[] trieR26;
+    private byte[] radix;
+    private int[] radixIdx;
+    private byte[] radixLength;
+    private byte[] wordBytes;
+    private int[] wordOffset;
+    private int[] wordId;
+    private int[] wordSlot;
+    private int wordCount;
+    private int hasWordGroup1;
+    private int hasRadix;
+    private int hasWordGroup2;
+    private int endTrie;
+    private int endRadix;
+
+    /**
+     * Initializes the BoggleDictionaryBuilder with the given estimate number of words,
+     * build in current thread.
+     *
+     * @param estSize the integer of given estimate number of words
+     */
+    public BoggleDictionaryBuilder(int estSize) {
+        this(estSize, null);
+    }
+
+    /**
+     * Initializes the BoggleDictionaryBuilder with the given estimate number of words,
+     * build the shard of each first character of addAll and emit the final layout
+     * in parallel with the given ForkJoinPool.
+     *
+     * @param estSize the integer of given estimate number of words
+     * @param pool the given ForkJoinPool, build in current thread if null
+     */
+    public BoggleDictionaryBuilder(int estSize, ForkJoinPool pool) {
+        this.pool = pool;
+        shards = new Shard[26];
+        for (int letter = 0; letter < 26; letter++) {
+            shards[letter] = new Shard(letter, estSize / 26);
+        }
+        last = new byte[64];
+    }
+
+    /**
+     * Adds the given word, it must not be smaller than the previous word.  Ignore
+     * the duplicate word, word less than 3 characters, or with 'Q' but not follow
+     * by 'U'.
+     *
+     * @param word the given String of word in upper case
+     * @throws IllegalArgumentException if the word is not in sorted order
+     */
+    public void add(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("Word is mandatory");
+        }
+        byte[] bytes = new byte[word.length()];
+        for (int idx = 0; idx < word.length(); idx++) {
+            char ch = word.charAt(idx);
+            bytes[idx] = ch < 128 ? (byte) ch : 0;
+        }
+        add(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Adds the word of the given range of ASCII code, it must not be smaller than
+     * the previous word.  Ignore the duplicate word, word less than 3 characters,
+     * or with 'Q' but not follow by 'U'.
+     *
+     * @param word the given byte array of ASCII code of upper case word
+     * @param start the starting position of the word
+     * @param length the length of the word
+     * @throws IllegalArgumentException if the word is not in sorted order
+     */
+    public void add(byte[] word, int start, int length) {
+        if (built) {
+            throw new IllegalStateException("Dictionary has been built");
+        }
+        int common = 0;
+        while (common < lastLength && common < length
+                && last[common] == word[start + common]) {
+            common++;
+        }
+        if (common == length && common == lastLength) {
+            return;
+        }
+        if (common == length || (common < lastLength && word[start + common] < last[common])) {
+            throw new IllegalArgumentException("Words must be in sorted order : "
+                    + new String(word, start, length, StandardCharsets.US_ASCII));
+        }
+        if (length > last.length) {
+            last = Arrays.copyOf(last, length * 2);
+        }
+        System.arraycopy(word, start, last, 0, length);
+        lastLength = length;
+
+        int letter = word[start] - OFFSET;
+        if (length >= 3 && letter >= 0 && letter < 26) {
+            shards[letter].add(word, start, length);
+        }
+    }
+
+    /**
+     * Adds all words of the given sorted BoggleWordList, the shard of each first
+     * character is built in parallel with the ForkJoinPool of this builder.  The
+     * words must be greater than the words added before.
+     *
+     * @param list the given sorted BoggleWordList
+     * @throws IllegalArgumentException if the BoggleWordList is not sorted
+     */
+    public void addAll(BoggleWordList list) {
+        if (list == null || !list.isSorted()) {
+            throw new IllegalArgumentException("Sorted word list is mandatory");
+        }
+        if (pool == null || lastLength > 0) {
+            for (int idx = 0; idx < list.size(); idx++) {
+                add(list.getBytes(), list.getStart(idx), list.getLength(idx));
+            }
+            return;
+        }
+
+        // the words of each first character are in a range of the sorted list
+        ShardBuild[] tasks = new ShardBuild[26];
+        int count = 0;
+        int idx = 0;
+        byte[] bytes = list.getBytes();
+        while (idx < list.size()) {
+            int letter = bytes[list.getStart(idx)] - OFFSET;
+            int end = idx + 1;
+            while (end < list.size() && bytes[list.getStart(end)] - OFFSET == letter) {
+                end++;
+            }
+            tasks[count++] = new ShardBuild(shards[letter], list, idx, end);
+            idx = end;
+        }
+        if (count > 0) {
+            idx = list.size() - 1;
+            lastLength = list.getLength(idx);
+            last = Arrays.copyOfRange(bytes, list.getStart(idx), list.getStart(idx)
+                    + Math.max(lastLength, 64));
+        }
+        pool.invoke(new ShardBuilds(tasks, count));
+    }
+
+    /**
+     * Finishes the last word and emits the final layout of the dictionary.
+     */
+    public void build() {
+        if (built) {
+            return;
+        }
+        built = true;
+        for (Shard shard : shards) {
+            shard.finish();
+        }
+
+        // the keys of each group are in order of first character
+        int[] groupCount = new int[7];
+        int radixSize = 1;
+        for (Shard shard : shards) {
+            shard.wordBase = wordCount;
+            shard.radixBase = radixSize;
+            wordCount += shard.wordCount;
+            radixSize += shard.radixSize - 1;
+            for (int group = 1; group < 7; group++) {
+                shard.keyBase[group] = groupCount[group];
+                groupCount[group] += shard.groupCount[group];
+            }
+        }
+        if (wordCount == 0) {
+            return;
+        }
+        int[] base = new int[7];
+        base[1] = 26;
+        for (int group = 2; group < 7; group++) {
+            base[group] = base[group - 1] + groupCount[group - 1];
+        }
+        for (Shard shard : shards) {
+            for (int group = 1; group < 7; group++) {
+                shard.keyBase[group] += base[group];
+            }
+        }
+        hasWordGroup1 = base[2] - 1;
+        hasRadix = base[3] - 1;
+        hasWordGroup2 = base[4] - 1;
+        endTrie = base[5];
+        endRadix = base[6];
+        int size = base[6] + groupCount[6];
+
+        trieR26 = new int[endTrie * 26];
+        radix = new byte[radixSize];
+        radixIdx = new int[endRadix - hasRadix];
+        radixLength = new byte[endRadix - hasRadix];
+        wordOffset = new int[size - hasWordGroup1 + 1];
+        wordId = new int[size - hasWordGroup1];
+        Arrays.fill(wordId, NONE);
+        wordSlot = new int[wordCount];
+        invokeShards(false);
+        for (int idx = 1; idx < wordOffset.length; idx++) {
+            wordOffset[idx] += wordOffset[idx - 1];
+        }
+        wordBytes = new byte[wordOffset[wordOffset.length - 1]];
+        invokeShards(true);
+        shards = null;
+    }
+
+    // emit the storage of all shards, or restore the words of all shards
+    private void invokeShards(boolean restore) {
+        if (pool == null) {
+            for (Shard shard : shards) {
+                if (restore) {
+                    shard.restoreWords();
+                } else {
+                    shard.emit();
+                }
+            }
+        } else {
+            pool.invoke(new ShardEmit(0, 26, restore));
+        }
+    }
+
+    // fork join task of building the shard of the given range of sorted words
+    private static class ShardBuild extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Shard shard;
+        private final BoggleWordList list;
+        private final int start;
+        private final int end;
+
+        ShardBuild(Shard shard, BoggleWordList list, int start, int end) {
+            this.shard = shard;
+            this.list = list;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            byte[] bytes = list.getBytes();
+            for (int idx = start; idx < end; idx++) {
+                shard.add(bytes, list.getStart(idx), list.getLength(idx));
+            }
+        }
+    }
+
+    // fork join task of all shard builds
+    private static class ShardBuilds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ShardBuild[] tasks;
+        private final int count;
+
+        ShardBuilds(ShardBuild[] tasks, int count) {
+            this.tasks = tasks;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(Arrays.asList(tasks).subList(0, count));
+        }
+    }
+
+    // fork join task of a range of shards, emit the storage or restore the words,
+    // each shard writes to it's own ranges of final storage
+    private class ShardEmit extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int start;
+        private final int end;
+        private final boolean restore;
+
+        ShardEmit(int start, int end, boolean restore) {
+            this.start = start;
+            this.end = end;
+            this.restore = restore;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new ShardEmit(start, mid, restore),
+                        new ShardEmit(mid, end, restore));
+                return;
+            }
+            if (restore) {
+                shards[start].restoreWords();
+            } else {
+                shards[start].emit();
+            }
+        }
+    }
+
+    // the subtree of a first character
+    private class Shard {
+        private final int letter;
+
+        // records of finished keys: mask of existing characters, position of first
+        // child in edges, radix position and length, word length and word id
+        private int[] recMask;
+        private int[] recEdge;
+        private int[] recRadixPos;
+        private byte[] recRadixLength;
+        private int[] recWordLength;
+        private int[] recWordId;
+        private byte[] recGroup;
+        private int[] recRank;
+        private int recSize;
+        private int[] edges;
+        private int edgeSize;
+        private byte[] tempRadix;
+        private int radixSize;
+        private int[] groupCount;
+        private int[] rootChild;
+        private int wordCount;
+
+        // starting key of each group, starting radix position and word id in
+        // final storage
+        private int[] keyBase;
+        private int radixBase;
+        private int wordBase;
+
+        // open path of last word, by depth of character index
+        private int[] prev;
+        private int prevLength;
+        private int[] pathMask;
+        private int[][] pathChild;
+        private int[] pathWordLength;
+        private int[] pathWordId;
+        private int[] pendingCh;
+        private int[] pendingRec;
+        private byte[][] pendingRadix;
+        private int[] pendingRadixLength;
+        private int[] chars;
+
+        Shard(int letter, int estSize) {
+            this.letter = letter;
+            int capacity = Math.max(estSize, 64) * 3 / 2;
+            recMask = new int[capacity];
+            recEdge = new int[capacity];
+            recRadixPos = new int[capacity];
+            recRadixLength = new byte[capacity];
+            recWordLength = new int[capacity];
+            recWordId = new int[capacity];
+            recGroup = new byte[capacity];
+            recRank = new int[capacity];
+            edges = new int[capacity];
+            tempRadix = new byte[capacity * 4];
+            radixSize = 1;
+            groupCount = new int[7];
+            keyBase = new int[7];
+            rootChild = new int[26];
+            Arrays.fill(rootChild, NONE);
+            chars = new int[0];
+            prev = new int[0];
+        }
+
+        // extend the storage of open path to the given depth
+        private void ensureDepth(int depth) {
+            if (depth <= prev.length) {
+                return;
+            }
+            int size = Math.max(depth, prev.length * 2);
+            chars = Arrays.copyOf(chars, size);
+            prev = Arrays.copyOf(prev, size);
+            pathMask = pathMask == null ? new int[size] : Arrays.copyOf(pathMask, size);
+            pathWordLength = pathWordLength == null ? new int[size]
+                    : Arrays.copyOf(pathWordLength, size);
+            pathWordId = pathWordId == null ? new int[size] : Arrays.copyOf(pathWordId, size);
+            pendingCh = pendingCh == null ? new int[size] : Arrays.copyOf(pendingCh, size);
+            pendingRec = pendingRec == null ? new int[size] : Arrays.copyOf(pendingRec, size);
+            pendingRadixLength = pendingRadixLength == null ? new int[size]
+                    : Arrays.copyOf(pendingRadixLength, size);
+            int from = pathChild == null ? 0 : pathChild.length;
+            pathChild = pathChild == null ? new int[size][] : Arrays.copyOf(pathChild, size);
+            pendingRadix = pendingRadix == null ? new byte[size][]
+                    : Arrays.copyOf(pendingRadix, size);
+            for (int idx = from; idx < size; idx++) {
+                pathChild[idx] = new int[26];
+                pendingRadix[idx] = new byte[MAX_RADIX];
+            }
+        }
+
+        // add the word of this first character in sorted order, the duplicate
+        // has been removed
+        void add(byte[] word, int start, int wordLength) {
+            ensureDepth(wordLength);
+            int length = toCharIndex(word, start, wordLength);
+            if (length < 2) {
+                return;
+            }
+
+            int common = 0;
+            while (common < prevLength && common < length && prev[common] == chars[common]) {
+                common++;
+            }
+            for (int depth = prevLength - 1; depth >= Math.max(common, 1); depth--) {
+                finish(depth);
+            }
+            for (int depth = common; depth < length; depth++) {
+                prev[depth] = chars[depth];
+                pathMask[depth] = 0;
+                pathWordLength[depth] = 0;
+                pathWordId[depth] = NONE;
+                pendingCh[depth] = NONE;
+            }
+            pathWordLength[length - 1] = wordLength;
+            pathWordId[length - 1] = wordCount++;
+            prevLength = length;
+        }
+
+        // convert the word to character indexes, 'QU' as 'Q', return the number of
+        // character indexes, 0 if not a valid word
+        private int toCharIndex(byte[] word, int start, int wordLength) {
+            int length = 0;
+            int end = start + wordLength;
+            for (int idx = start; idx < end; idx++) {
+                int ch = word[idx] - OFFSET;
+                if (ch < 0 || ch > 25) {
+                    return 0;
+                }
+                if (ch == IDX_Q) {
+                    if (idx + 1 == end || word[idx + 1] != 'U') {
+                        return 0;
+                    }
+                    idx++;
+                }
+                chars[length++] = ch;
+            }
+            return length;
+        }
+
+        // finish the path of the last word
+        void finish() {
+            for (int depth = prevLength - 1; depth > 0; depth--) {
+                finish(depth);
+            }
+            prevLength = 0;
+            prev = null;
+            chars = null;
+            pathMask = null;
+            pathChild = null;
+            pathWordLength = null;
+            pathWordId = null;
+            pendingCh = null;
+            pendingRec = null;
+            pendingRadix = null;
+            pendingRadixLength = null;
+        }
+
+        // finish the key of the given depth, merge it with it's only child as radix,
+        // or store it as a record, then pass to the parent
+        private void finish(int depth) {
+            if (pathWordLength[depth] == 0 && pathMask[depth] == 0 && pendingCh[depth] != NONE
+                    && pendingRadixLength[depth] < MAX_RADIX) {
+                // the key is not a word and has one child, the radix is stored in
+                // reverse order until the key is registered
+                byte[] chain = pendingRadix[depth];
+                chain[pendingRadixLength[depth]] = (byte) (pendingCh[depth] + OFFSET);
+                addChild(depth - 1, pendingRec[depth], depth, pendingRadixLength[depth] + 1);
+                return;
+            }
+            if (pendingCh[depth] != NONE) {
+                registerPending(depth);
+            }
+
+            int rec = newRecord();
+            recMask[rec] = pathMask[depth];
+            recEdge[rec] = edgeSize;
+            recWordLength[rec] = pathWordLength[depth];
+            recWordId[rec] = pathWordId[depth];
+            int mask = pathMask[depth];
+            int count = Integer.bitCount(mask);
+            if (edgeSize + count > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(edges.length * 3 / 2, edgeSize + count));
+            }
+            for (int ch = 0; ch < 26; ch++) {
+                if ((mask & 1 << ch) != 0) {
+                    edges[edgeSize++] = pathChild[depth][ch];
+                }
+            }
+            addChild(depth - 1, rec, depth, 0);
+        }
+
+        // add the record with the radix of the given depth to the parent, the first
+        // child stay pending if the parent may merge with it
+        private void addChild(int parent, int rec, int depth, int chainLength) {
+            int ch = prev[depth];
+            if (parent == 0) {
+                register(rec, pendingRadix[depth], chainLength);
+                rootChild[ch] = rec;
+                return;
+            }
+            if (pathWordLength[parent] == 0 && pathMask[parent] == 0
+                    && pendingCh[parent] == NONE) {
+                // swap the radix buffer to parent
+                byte[] temp = pendingRadix[parent];
+                pendingRadix[parent] = pendingRadix[depth];
+                pendingRadix[depth] = temp;
+                pendingCh[parent] = ch;
+                pendingRec[parent] = rec;
+                pendingRadixLength[parent] = chainLength;
+                return;
+            }
+            if (pendingCh[parent] != NONE) {
+                registerPending(parent);
+            }
+            register(rec, pendingRadix[depth], chainLength);
+            pathMask[parent] |= 1 << ch;
+            pathChild[parent][ch] = rec;
+        }
+
+        // register the pending child of the given depth
+        private void registerPending(int depth) {
+            int ch = pendingCh[depth];
+            register(pendingRec[depth], pendingRadix[depth], pendingRadixLength[depth]);
+            pathMask[depth] |= 1 << ch;
+            pathChild[depth][ch] = pendingRec[depth];
+            pendingCh[depth] = NONE;
+        }
+
+        // store the radix of the record, and assign it's rank in it's group
+        private void register(int rec, byte[] chain, int chainLength) {
+            if (radixSize + chainLength > tempRadix.length) {
+                tempRadix = Arrays.copyOf(tempRadix, Math.max(tempRadix.length * 3 / 2,
+                        radixSize + chainLength));
+            }
+            recRadixPos[rec] = radixSize;
+            recRadixLength[rec] = (byte) chainLength;
+            for (int idx = chainLength - 1; idx >= 0; idx--) {
+                tempRadix[radixSize++] = chain[idx];
+            }
+
+            // group of keys, see BoggleDictionary.java - Details
+            boolean hasTrie = recMask[rec] != 0;
+            boolean isWord = recWordLength[rec] > 0;
+            int group;
+            if (hasTrie) {
+                group = (chainLength > 0 ? 3 : 1) + (isWord ? 1 : 0);
+            } else {
+                group = chainLength > 0 ? 5 : 6;
+            }
+            recGroup[rec] = (byte) group;
+            recRank[rec] = groupCount[group]++;
+        }
+
+        // return the number of a new record
+        private int newRecord() {
+            if (recSize == recMask.length) {
+                int size = recSize * 3 / 2;
+                recMask = Arrays.copyOf(recMask, size);
+                recEdge = Arrays.copyOf(recEdge, size);
+                recRadixPos = Arrays.copyOf(recRadixPos, size);
+                recRadixLength = Arrays.copyOf(recRadixLength, size);
+                recWordLength = Arrays.copyOf(recWordLength, size);
+                recWordId = Arrays.copyOf(recWordId, size);
+                recGroup = Arrays.copyOf(recGroup, size);
+                recRank = Arrays.copyOf(recRank, size);
+            }
+            return recSize++;
+        }
+
+        // write the trie rows, radix and words of this shard to final storage, the
+        // rank become the final key
+        void emit() {
+            for (int rec = 0; rec < recSize; rec++) {
+                recRank[rec] += keyBase[recGroup[rec]];
+            }
+            for (int ch = 0; ch < 26; ch++) {
+                if (rootChild[ch] != NONE) {
+                    trieR26[letter * 26 + ch] = recRank[rootChild[ch]];
+                }
+            }
+            for (int rec = 0; rec < recSize; rec++) {
+                int mask = recMask[rec];
+                int key = recRank[rec] * 26;
+                int edge = recEdge[rec];
+                for (int ch = 0; ch < 26; ch++) {
+                    if ((mask & 1 << ch) != 0) {
+                        trieR26[key + ch] = recRank[edges[edge++]];
+                    }
+                }
+            }
+
+            System.arraycopy(tempRadix, 1, radix, radixBase, radixSize - 1);
+            for (int rec = 0; rec < recSize; rec++) {
+                int key = recRank[rec];
+                if (key > hasRadix && key < endRadix) {
+                    radixIdx[key - hasRadix] = recRadixPos[rec] - 1 + radixBase;
+                    radixLength[key - hasRadix] = recRadixLength[rec];
+                }
+                if (recWordLength[rec] > 0) {
+                    int wordIdx = key - hasWordGroup1;
+                    wordOffset[wordIdx + 1] = recWordLength[rec];
+                    wordId[wordIdx] = recWordId[rec] + wordBase;
+                    wordSlot[recWordId[rec] + wordBase] = wordIdx;
+                }
+            }
+            recMask = null;
+            recEdge = null;
+            recRadixPos = null;
+            recRadixLength = null;
+            recWordLength = null;
+            recWordId = null;
+            recGroup = null;
+            recRank = null;
+            edges = null;
+            tempRadix = null;
+        }
+
+        // restore the words of this first character from the trie paths
+        void restoreWords() {
+            byte[] path = new byte[256];
+            path[0] = (byte) (letter + OFFSET);
+            for (int ch = 0; ch < 26; ch++) {
+                int nextKey = trieR26[letter * 26 + ch];
+                if (nextKey != 0) {
+                    path[1] = (byte) (ch + OFFSET);
+                    path = restoreWords(nextKey, path, 2);
+                }
+            }
+        }
+
+        // copy the words of the given key and it's children from the given path,
+        // return the path buffer
+        private byte[] restoreWords(int key, byte[] path, int depth) {
+            if (key > hasRadix && key < endRadix) {
+                int pos = radixIdx[key - hasRadix];
+                int length = radixLength[key - hasRadix];
+                if (depth + length + 1 > path.length) {
+                    path = Arrays.copyOf(path, (depth + length + 1) * 2);
+                }
+                System.arraycopy(radix, pos, path, depth, length);
+                depth += length;
+            }
+            if (key > hasWordGroup1 && !(key > hasRadix && key <= hasWordGroup2)) {
+                int pos = wordOffset[key - hasWordGroup1];
+                for (int idx = 0; idx < depth; idx++) {
+                    wordBytes[pos++] = path[idx];
+                    if (path[idx] - OFFSET == IDX_Q) {
+                        wordBytes[pos++] = 'U';
+                    }
+                }
+            }
+            if (key < endTrie) {
+                if (depth + 1 > path.length) {
+                    path = Arrays.copyOf(path, (depth + 1) * 2);
+                }
+                for (int ch = 0; ch < 26; ch++) {
+                    int nextKey = trieR26[key * 26 + ch];
+                    if (nextKey != 0) {
+                        path[depth] = (byte) (ch + OFFSET);
+                        path = restoreWords(nextKey, path, depth + 1);
+                    }
+                }
+            }
+            return path;
+        }
+    }
+
+    // return the boolean represent the builder has no word
+    final boolean isEmpty() {
+        return wordCount == 0;
+    }
+
+    // return the integer array of the trie in sorted order
+    final int[] getTrieR26() {
+        return trieR26;
+    }
+
+    // return the byte array of radix storage
+    final byte[] getRadix() {
+        return radix;
+    }
+
+    // return the integer array of radix index of keys has radix
+    final int[] getRadixIdx() {
+        return radixIdx;
+    }
+
+    // return the byte array of radix length of keys has radix
+    final byte[] getRadixLength() {
+        return radixLength;
+    }
+
+    // return the byte array of ASCII code of all words
+    final byte[] getWordBytes() {
+        return wordBytes;
+    }
+
+    // return the integer array of starting position of each word
+    final int[] getWordOffset() {
+        return wordOffset;
+    }
+
+    // return the integer array of word index to word id
+    final int[] getWordId() {
+        return wordId;
+    }
+
+    // return the integer array of word id to word index
+    final int[] getWordSlot() {
+        return wordSlot;
+    }
+
+    // return the integer array of the group flags: hasWordGroup1, hasRadix,
+    // hasWordGroup2, endTrie, endRadix
+    final int[] getFlags() {
+        return new int[] {hasWordGroup1, hasRadix, hasWordGroup2, endTrie, endRadix};
+    }
+}
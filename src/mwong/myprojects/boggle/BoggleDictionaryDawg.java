@@ -0,0 +1,484 @@
+package mwong.myprojects.boggle;
+
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * BoggleDictionaryDawg is the BoggleDictionary stored as a minimal acyclic
+ * automaton (DAWG), the common suffixes of words share the same keys.  It is built
+ * incrementally from the sorted word list, each key is registered once all words
+ * of it's prefix have been added.
+ *
+ * <p>A shared key cannot hold the word, the word index is counted along the path:
+ * each edge store the number of words before it in lexicographic order, the word
+ * index is the sum of the numbers along the path plus one.  The word is decoded
+ * from the word index by the same numbers, no String of word is stored.
+ *
+ * <p>Dependencies : BoggleDictionary.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryDawg extends BoggleDictionary {
+    private static final int OFFSET = BoggleDictionary.getOffset();
+    private static final int IDX_Q = BoggleDictionary.getIdxQ();
+    private static final int CHILD_MASK = (1 << 26) - 1;
+    private static final int TERMINAL = 1 << 26;
+    // keys 0 - 25 are the keys of first characters
+    private static final int FIRST_KEY = 26;
+    // nodes layout: mask of existing characters and terminal flag, position of first child
+    private int[] nodes;
+    private int[] children;
+    private int[] before;
+    private int[] firstBefore;
+    private int[] letterMask;
+    private short[] maxCompletion;
+    private int count;
+
+    // temporary storage of incremental build
+    private int nodeSize;
+    private int edgeSize;
+    private int[] counts;
+    private HashMap<String, Integer> register;
+
+    /**
+     *  Initializes the BoggleDictionaryDawg object using default dictionary.
+     */
+    public BoggleDictionaryDawg() {
+        this(DictionaryOptions.OSPD);
+    }
+
+    /**
+     * Initializes the BoggleDictionaryDawg object using the given dictionary option.
+     *
+     * @param option the given dictionary option
+     */
+    public BoggleDictionaryDawg(DictionaryOptions option) {
+        this(getFilepath(option));
+    }
+
+    /**
+     * Initializes the BoggleDictionaryDawg object using the give dictionary file.
+     *
+     * @param filepath the given String of file path
+     */
+    public BoggleDictionaryDawg(String filepath) {
+        super(true);
+        loadDictionary(readDictionary(filepath));
+    }
+
+    // build the minimal acyclic automaton from the sorted words
+    private void loadDictionary(String[] dict) {
+        int maxLength = 0;
+        for (String word : dict) {
+            maxLength = Math.max(maxLength, word.length());
+        }
+        nodes = new int[1024];
+        children = new int[1024];
+        counts = new int[512];
+        nodeSize = FIRST_KEY;
+        edgeSize = 0;
+        register = new HashMap<String, Integer>();
+
+        // unregistered path of previous word, the last child of each key is the
+        // next key of the path
+        int[] pathMask = new int[maxLength + 1];
+        int[][] pathChild = new int[maxLength + 1][26];
+        int[] prev = new int[maxLength];
+        int prevLength = 0;
+        int[] chars = new int[maxLength];
+        count = 0;
+        for (String word : dict) {
+            int length = toCharIndex(word, chars);
+            if (length < 2) {
+                continue;
+            }
+            int common = 0;
+            while (common < prevLength && common < length && prev[common] == chars[common]) {
+                common++;
+            }
+            for (int depth = prevLength; depth > common; depth--) {
+                pathChild[depth - 1][prev[depth - 1]] = registerKey(pathMask[depth],
+                        pathChild[depth]);
+            }
+            for (int depth = common; depth < length; depth++) {
+                pathMask[depth] |= 1 << chars[depth];
+                pathMask[depth + 1] = 0;
+                prev[depth] = chars[depth];
+            }
+            pathMask[length] |= TERMINAL;
+            prevLength = length;
+            count++;
+        }
+        for (int depth = prevLength; depth > 0; depth--) {
+            pathChild[depth - 1][prev[depth - 1]] = registerKey(pathMask[depth],
+                    pathChild[depth]);
+        }
+
+        // the keys of first characters, the numbers of words before include
+        // the words of previous first characters
+        firstBefore = new int[27];
+        for (int ch = 0; ch < 26; ch++) {
+            firstBefore[ch + 1] = firstBefore[ch];
+            if ((pathMask[0] & 1 << ch) != 0) {
+                int key = pathChild[0][ch];
+                int first = nodes[key * 2 + 1];
+                nodes[ch * 2] = nodes[key * 2];
+                nodes[ch * 2 + 1] = edgeSize;
+                for (int idx = 0; idx < Integer.bitCount(nodes[key * 2] & CHILD_MASK); idx++) {
+                    addEdge(children[first + idx]);
+                }
+                counts[ch] = counts[key];
+                firstBefore[ch + 1] += counts[key];
+            }
+        }
+
+        // compact the storage and count the number of words before each edge
+        int[] tempNodes = new int[nodeSize * 2];
+        System.arraycopy(nodes, 0, tempNodes, 0, nodeSize * 2);
+        nodes = tempNodes;
+        int[] tempChildren = new int[edgeSize];
+        System.arraycopy(children, 0, tempChildren, 0, edgeSize);
+        children = tempChildren;
+        before = new int[edgeSize];
+        for (int key = 0; key < nodeSize; key++) {
+            int num = (nodes[key * 2] & TERMINAL) == 0 ? 0 : 1;
+            if (key < FIRST_KEY) {
+                num += firstBefore[key];
+            }
+            int first = nodes[key * 2 + 1];
+            int last = first + Integer.bitCount(nodes[key * 2] & CHILD_MASK);
+            for (int idx = first; idx < last; idx++) {
+                before[idx] = num;
+                num += counts[children[idx]];
+            }
+        }
+        counts = null;
+        register = null;
+        loadKeyBounds();
+    }
+
+    // set the mask of letters every completion after each key must use, 0 if the
+    // key is a word, all letters if no completion; and the length of the longest
+    // completion, 'QU' as 2 letters.  Both depend only on the words after the key,
+    // they stay valid for every path shared the key.  The children are registered
+    // before their parent, visit the registered keys in order then the keys of
+    // first characters.
+    private void loadKeyBounds() {
+        int size = nodes.length / 2;
+        letterMask = new int[size];
+        maxCompletion = new short[size];
+        for (int idx = 0; idx < size; idx++) {
+            int key = idx < size - FIRST_KEY ? idx + FIRST_KEY : idx - (size - FIRST_KEY);
+            int mask = nodes[key * 2];
+            int letters = (mask & TERMINAL) == 0 ? CHILD_MASK : 0;
+            int length = 0;
+            int first = nodes[key * 2 + 1];
+            int bits = mask & CHILD_MASK;
+            for (int edge = first; bits != 0; edge++) {
+                int ch = Integer.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int nextKey = children[edge];
+                letters &= 1 << ch | letterMask[nextKey];
+                length = Math.max(length, (ch == IDX_Q ? 2 : 1) + maxCompletion[nextKey]);
+            }
+            letterMask[key] = letters;
+            maxCompletion[key] = (short) Math.min(length, Short.MAX_VALUE);
+        }
+    }
+
+    // convert the word to character indexes, 'QU' as 'Q', return the number of
+    // character indexes, 0 if not a valid word
+    private static int toCharIndex(String word, int[] chars) {
+        int length = 0;
+        for (int idx = 0; idx < word.length(); idx++) {
+            int ch = word.charAt(idx) - OFFSET;
+            if (ch < 0 || ch > 25) {
+                return 0;
+            }
+            if (ch == IDX_Q) {
+                if (idx + 1 == word.length() || word.charAt(idx + 1) != 'U') {
+                    return 0;
+                }
+                idx++;
+            }
+            chars[length++] = ch;
+        }
+        if (word.length() < 3) {
+            return 0;
+        }
+        return length;
+    }
+
+    // return the key of the given mask and children, register it if not exists
+    private int registerKey(int mask, int[] child) {
+        StringBuilder signature = new StringBuilder();
+        signature.append((char) (mask >>> 16)).append((char) mask);
+        for (int ch = 0; ch < 26; ch++) {
+            if ((mask & 1 << ch) != 0) {
+                signature.append((char) (child[ch] >>> 16)).append((char) child[ch]);
+            }
+        }
+        String id = signature.toString();
+        Integer key = register.get(id);
+        if (key != null) {
+            return key;
+        }
+
+        if (nodeSize * 2 + 2 > nodes.length) {
+            int[] temp = new int[nodes.length * 2];
+            System.arraycopy(nodes, 0, temp, 0, nodes.length);
+            nodes = temp;
+        }
+        if (nodeSize + 1 > counts.length) {
+            int[] temp = new int[counts.length * 2];
+            System.arraycopy(counts, 0, temp, 0, counts.length);
+            counts = temp;
+        }
+        int newKey = nodeSize++;
+        nodes[newKey * 2] = mask;
+        nodes[newKey * 2 + 1] = edgeSize;
+        int num = (mask & TERMINAL) == 0 ? 0 : 1;
+        for (int ch = 0; ch < 26; ch++) {
+            if ((mask & 1 << ch) != 0) {
+                addEdge(child[ch]);
+                num += counts[child[ch]];
+            }
+        }
+        counts[newKey] = num;
+        register.put(id, newKey);
+        return newKey;
+    }
+
+    // append the given child key to the children storage
+    private void addEdge(int key) {
+        if (edgeSize + 1 > children.length) {
+            int[] temp = new int[children.length * 2];
+            System.arraycopy(children, 0, temp, 0, children.length);
+            children = temp;
+        }
+        children[edgeSize++] = key;
+    }
+
+    // return the position of the edge of the given character index of the key
+    private int getEdge(int key, int ch) {
+        int mask = nodes[key * 2];
+        return nodes[key * 2 + 1] + Integer.bitCount(mask & ((1 << ch) - 1));
+    }
+
+    // decode the word of the given word index, return the length of the word
+    // and append it to the given StringBuilder if not null
+    private int decode(int wordIdx, StringBuilder builder) {
+        int num = wordIdx - 1;
+        int ch = 0;
+        while (firstBefore[ch + 1] <= num) {
+            ch++;
+        }
+        int key = ch;
+        int length = 0;
+        while (true) {
+            length += ch == IDX_Q ? 2 : 1;
+            if (builder != null) {
+                builder.append((char) (ch + OFFSET));
+                if (ch == IDX_Q) {
+                    builder.append('U');
+                }
+            }
+            int mask = nodes[key * 2];
+            if (key >= FIRST_KEY && (mask & TERMINAL) != 0 && num == 0) {
+                return length;
+            }
+            // follow the last edge of number of words before not greater than num
+            int first = nodes[key * 2 + 1];
+            int idx = first + Integer.bitCount(mask & CHILD_MASK) - 1;
+            while (before[idx] > num) {
+                idx--;
+            }
+            num -= before[idx];
+            int bits = mask & CHILD_MASK;
+            for (int skip = idx - first; skip > 0; skip--) {
+                bits &= bits - 1;
+            }
+            ch = Integer.numberOfTrailingZeros(bits);
+            key = children[idx];
+        }
+    }
+
+    // return the word index of the given word in upper or lower case, 0 if not in
+    // the dictionary or any character is not a letter
+    private int indexOf(String word) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        int depth = 0;
+        int len = word.length();
+        int key = -1;
+        int num = 0;
+        while (depth < len) {
+            int ch = charIndex(word, depth++);
+            if (ch == -1) {
+                return 0;
+            }
+            if (ch == IDX_Q) {
+                if (!(depth < len && charIndex(word, depth++) == 'U' - OFFSET)) {
+                    return 0;
+                }
+            }
+            if (key == -1) {
+                key = ch;
+            } else {
+                int nextKey = getNextKey(key, ch);
+                if (nextKey == 0) {
+                    return 0;
+                }
+                num += getNextNumber(key, ch);
+                key = nextKey;
+            }
+        }
+        return getWordIndex(key, num);
+    }
+
+    /**
+     * Returns false, the DAWG is build from the word list and it has no snapshot.
+     *
+     * @param filepath the given String of snapshot file path
+     * @return boolean represent the snapshot has been written, always false
+     */
+    @Override
+    public boolean writeSnapshot(String filepath) {
+        System.out.println("Snapshot is not supported by DAWG dictionary.");
+        return false;
+    }
+
+    /**
+     * Returns false, the DAWG is build from the word list and it has no mapped file.
+     *
+     * @param filepath the given String of mapped file path
+     * @return boolean represent the mapped file has been written, always false
+     */
+    @Override
+    public boolean writeMapped(String filepath) {
+        System.out.println("Mapped file is not supported by DAWG dictionary.");
+        return false;
+    }
+
+    @Override
+    protected boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    protected boolean contains(String key) {
+        return indexOf(key) > 0;
+    }
+
+    @Override
+    TreeSet<String> getAllWords(int minLength) {
+        TreeSet<String> set = new TreeSet<String>();
+        for (int wordIdx = 1; wordIdx <= count; wordIdx++) {
+            if (decode(wordIdx, null) >= minLength) {
+                set.add(getWord(wordIdx));
+            }
+        }
+        return set;
+    }
+
+    @Override
+    protected int getNextKey(int key, int ch) {
+        int mask = nodes[key * 2];
+        int bit = 1 << ch;
+        if ((mask & bit) == 0) {
+            return 0;
+        }
+        return children[nodes[key * 2 + 1] + Integer.bitCount(mask & (bit - 1))];
+    }
+
+    @Override
+    protected int getNextNumber(int key, int ch) {
+        return before[getEdge(key, ch)];
+    }
+
+    @Override
+    protected int getTrieSize() {
+        return nodes.length / 2;
+    }
+
+    @Override
+    protected long getTrieMemory() {
+        return (nodes.length + children.length + before.length + firstBefore.length
+                + letterMask.length) * 4L + maxCompletion.length * 2L;
+    }
+
+    @Override
+    protected int getLetterMask(int key) {
+        return letterMask[key];
+    }
+
+    @Override
+    protected int getMaxWordLength(int key, int length) {
+        return length + maxCompletion[key];
+    }
+
+    @Override
+    protected boolean hasTrie(int key) {
+        return (nodes[key * 2] & CHILD_MASK) != 0;
+    }
+
+    @Override
+    protected boolean hasRadix(int key) {
+        return false;
+    }
+
+    @Override
+    protected int getWordIndex(int key, int num) {
+        if (key < FIRST_KEY || (nodes[key * 2] & TERMINAL) == 0) {
+            return 0;
+        }
+        return num + 1;
+    }
+
+    @Override
+    protected String getWord(int wordIdx) {
+        StringBuilder builder = new StringBuilder();
+        decode(wordIdx, builder);
+        return builder.toString();
+    }
+
+    @Override
+    protected int getWordIdByIndex(int wordIdx) {
+        return wordIdx - 1;
+    }
+
+    @Override
+    public String wordAt(int id) {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("Invalid word id : " + id);
+        }
+        return getWord(id + 1);
+    }
+
+    @Override
+    public int getWordId(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("Word is mandatory");
+        }
+        return indexOf(word) - 1;
+    }
+
+    @Override
+    public int getWordCount() {
+        return count;
+    }
+
+    @Override
+    protected int getWordLength(int wordIdx) {
+        return decode(wordIdx, null);
+    }
+
+    @Override
+    protected int getWordIndexSize() {
+        return count + 1;
+    }
+}
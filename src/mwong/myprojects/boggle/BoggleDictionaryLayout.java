@@ -0,0 +1,158 @@
+package mwong.myprojects.boggle;
+
+import java.util.Arrays;
+
+/**
+ * BoggleDictionaryLayout is the cache locality order of the keys of a BoggleDictionary
+ * for a boggle option.  Each key is weighted by the estimate frequency the depth first
+ * search visit it on a random board: the probability of the letters of it's path on
+ * the dices, times the average number of neighbors of each step.  The keys are
+ * numbered in depth first order from the roots, the heavier child first, so the
+ * subtree of a prefix stay close together as the search walk down the subtree, and
+ * the common prefixes come first within their parent.  A weighted breadth first
+ * order pack the hot prefixes together but spread the deep subtrees, it is slower
+ * on the large boards.
+ *
+ * <p>The first-letter roots 0 - 25 are fixed, the other keys move within their own
+ * group only (see BoggleDictionary.java - Details), so the group flags stay the same.
+ *
+ * <p>Dependencies : BoggleDictionary.java, BoggleOptions.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryLayout {
+    private static final int ROOTS = 26;
+
+    private BoggleDictionaryLayout() {
+    }
+
+    /**
+     * Returns the integer array of new key of each key of the given dictionary, in
+     * depth first order weighted by the given boggle option within each group.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @param base the integer array of starting key of each group, follow by the
+     *     number of keys
+     * @param option the given boggle option
+     * @return integer array of new key of each key
+     */
+    static int[] order(BoggleDictionary dictionary, int[] base, BoggleOptions option) {
+        if (option == null) {
+            throw new IllegalArgumentException("BoggleOptions is mandatory");
+        }
+        float[] weight = weights(dictionary, base[base.length - 1], option);
+        int[] newKey = new int[weight.length];
+        int[] next = Arrays.copyOf(base, base.length - 1);
+        next[0] = ROOTS;
+        int[] stack = new int[weight.length];
+        int top = 0;
+        for (int key = ROOTS - 1; key >= 0; key--) {
+            stack[top++] = key;
+        }
+
+        // depth first from the roots, the heavier child first
+        int trieSize = dictionary.getTrieSize();
+        int[] children = new int[26];
+        while (top > 0) {
+            int key = stack[--top];
+            if (key < ROOTS) {
+                newKey[key] = key;
+            } else {
+                int group = next.length - 1;
+                while (key < base[group]) {
+                    group--;
+                }
+                newKey[key] = next[group]++;
+            }
+            if (key >= trieSize) {
+                continue;
+            }
+
+            int count = 0;
+            for (int ch = 0; ch < 26; ch++) {
+                int nextKey = dictionary.getNextKey(key, ch);
+                if (nextKey == 0) {
+                    continue;
+                }
+                int idx = count++;
+                while (idx > 0 && weight[children[idx - 1]] > weight[nextKey]) {
+                    children[idx] = children[idx - 1];
+                    idx--;
+                }
+                children[idx] = nextKey;
+            }
+            for (int idx = 0; idx < count; idx++) {
+                stack[top++] = children[idx];
+            }
+        }
+        return newKey;
+    }
+
+    // return the weight of each key, the estimate frequency of visit on a board
+    // of the given option
+    private static float[] weights(BoggleDictionary dictionary, int size,
+            BoggleOptions option) {
+        float[] step = letterSteps(option);
+        float[] weight = new float[size];
+        int[] stack = new int[size];
+        int top = 0;
+        for (int key = 0; key < ROOTS; key++) {
+            weight[key] = step[key];
+            stack[top++] = key;
+        }
+
+        // each key has one parent, visit all keys has next trie set once
+        int trieSize = dictionary.getTrieSize();
+        while (top > 0) {
+            int key = stack[--top];
+            for (int ch = 0; ch < 26; ch++) {
+                int nextKey = dictionary.getNextKey(key, ch);
+                if (nextKey == 0) {
+                    continue;
+                }
+                float next = weight[key] * step[ch];
+                if (dictionary.hasRadix(nextKey)) {
+                    int pos = dictionary.getRadixInit(nextKey);
+                    int end = pos + dictionary.getRadixLength(nextKey);
+                    while (pos < end) {
+                        next *= step[dictionary.getNextCharIndex(pos++)];
+                    }
+                }
+                weight[nextKey] = next;
+                if (nextKey < trieSize) {
+                    stack[top++] = nextKey;
+                }
+            }
+        }
+        return weight;
+    }
+
+    // return the weight of one step to each letter, the probability of the letter
+    // on the dices times the average number of neighbors
+    private static float[] letterSteps(BoggleOptions option) {
+        int size = option.getSize();
+        float neighbors = 4f * (2 * size * (size - 1) + 2 * (size - 1) * (size - 1))
+                / (size * size * 2);
+        int[] count = new int[26];
+        int faces = 0;
+        for (String dice : option.getDices()) {
+            for (int idx = 0; idx < dice.length(); idx++) {
+                int ch = dice.charAt(idx) - 'A';
+                if (ch >= 0 && ch < 26) {
+                    count[ch]++;
+                    faces++;
+                }
+            }
+        }
+
+        // one more face of each letter, the letter not on any dice is still in order
+        float[] step = new float[26];
+        for (int ch = 0; ch < 26; ch++) {
+            step[ch] = neighbors * (count[ch] + 1) / (faces + 26);
+        }
+        return step;
+    }
+}
@@ -0,0 +1,389 @@
+package mwong.myprojects.boggle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * BoggleDictionaryMapped is the BoggleDictionary of read only memory mapped file.
+ * The trie, radix and words storage stay in the file outside of the heap, the
+ * processes map the same file share the same physical pages, and the garbage
+ * collector never scan the dictionary.  The String of a word is decoded from the
+ * file once, on first use, and kept in a heap array of the word indexes; the words
+ * of each board are not decoded again.
+ *
+ * <p>File layout in little endian, header of 16 integers follow by the storage:
+ * <pre>
+ *     header:      magic, version, 5 group flags, length of each storage below
+ *     trie:        integer array of 26-way trie rows
+ *     radixIdx:    integer array of starting radix position
+ *     wordOffset:  integer array of starting position of each word in word bytes
+ *     wordId:      integer array of word index to word id
+ *     wordSlot:    integer array of word id to word index
+ *     letterMask:  integer array of letters required below each key
+ *     maxLength:   short array of maximum word length below each key
+ *     radixLength: byte array of radix length
+ *     radix:       byte array of radix ASCII code
+ *     wordBytes:   byte array of ASCII code of all words
+ * </pre>
+ *
+ * <p>Dependencies : BoggleDictionary.java, DictionaryOptions.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryMapped extends BoggleDictionary {
+    private static final String MAPPED_EXTENSION = ".mapped";
+    private static final int MAPPED_MAGIC = 0x42474C4D;
+    private static final int MAPPED_VERSION = 2;
+    private static final int HEADER = 16;
+    private static final int OFFSET = BoggleDictionary.getOffset();
+    private IntBuffer trie;
+    private IntBuffer radixIdx;
+    private IntBuffer wordOffset;
+    private IntBuffer wordId;
+    private IntBuffer wordSlot;
+    private IntBuffer letterMask;
+    private ShortBuffer maxWordLength;
+    private ByteBuffer radixLength;
+    private ByteBuffer radix;
+    private ByteBuffer wordBytes;
+    private String[] words;
+    private long size;
+    private int hasWordGroup1;
+    private int hasRadix;
+    private int hasWordGroup2;
+    private int endTrie;
+    private int endRadix;
+
+    // Initializes the BoggleDictionaryMapped object of the given mapped buffer
+    private BoggleDictionaryMapped(MappedByteBuffer buffer) throws IOException {
+        super(false);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        size = buffer.capacity();
+        if (size < HEADER * 4 || buffer.getInt(0) != MAPPED_MAGIC) {
+            throw new IOException("not a mapped dictionary");
+        }
+        int version = buffer.getInt(4);
+        if (version != MAPPED_VERSION) {
+            throw new IOException("unsupported mapped dictionary version " + version);
+        }
+        hasWordGroup1 = buffer.getInt(8);
+        hasRadix = buffer.getInt(12);
+        hasWordGroup2 = buffer.getInt(16);
+        endTrie = buffer.getInt(20);
+        endRadix = buffer.getInt(24);
+        int trieLength = buffer.getInt(28);
+        int radixIdxLength = buffer.getInt(32);
+        int radixSize = buffer.getInt(36);
+        int wordsLength = buffer.getInt(40);
+        int wordBytesLength = buffer.getInt(44);
+        int wordCount = buffer.getInt(48);
+        int keyCount = buffer.getInt(52);
+        long expected = HEADER * 4L + (trieLength + radixIdxLength + wordsLength * 2L + 1
+                + wordCount + keyCount) * 4 + keyCount * 2L + radixIdxLength + radixSize
+                + wordBytesLength;
+        if (size != expected) {
+            throw new IOException("mapped dictionary size mismatch");
+        }
+
+        int pos = HEADER * 4;
+        trie = slice(buffer, pos, trieLength * 4).asIntBuffer();
+        pos += trieLength * 4;
+        radixIdx = slice(buffer, pos, radixIdxLength * 4).asIntBuffer();
+        pos += radixIdxLength * 4;
+        wordOffset = slice(buffer, pos, (wordsLength + 1) * 4).asIntBuffer();
+        pos += (wordsLength + 1) * 4;
+        wordId = slice(buffer, pos, wordsLength * 4).asIntBuffer();
+        pos += wordsLength * 4;
+        wordSlot = slice(buffer, pos, wordCount * 4).asIntBuffer();
+        pos += wordCount * 4;
+        letterMask = slice(buffer, pos, keyCount * 4).asIntBuffer();
+        pos += keyCount * 4;
+        maxWordLength = slice(buffer, pos, keyCount * 2).asShortBuffer();
+        pos += keyCount * 2;
+        radixLength = slice(buffer, pos, radixIdxLength);
+        pos += radixIdxLength;
+        radix = slice(buffer, pos, radixSize);
+        pos += radixSize;
+        wordBytes = slice(buffer, pos, wordBytesLength);
+        words = new String[wordsLength];
+    }
+
+    // return the little endian view of the given range of the buffer
+    private static ByteBuffer slice(ByteBuffer buffer, int pos, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(pos);
+        view.limit(pos + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the BoggleDictionary of the given dictionary option.  Map the file next
+     * to the dictionary file if it is up to date, otherwise load the dictionary and
+     * refresh the mapped file.  Returns the heap version if it is unable to map.
+     *
+     * @param option the given dictionary option
+     * @return BoggleDictionary of the given dictionary option
+     */
+    public static BoggleDictionary loadMapped(DictionaryOptions option) {
+        String filepath = getFilepath(option);
+        String mappedpath = filepath + MAPPED_EXTENSION;
+        File file = new File(filepath);
+        File mapped = new File(mappedpath);
+        if (mapped.exists() && mapped.lastModified() >= file.lastModified()) {
+            BoggleDictionary dictionary = map(mappedpath);
+            if (dictionary != null) {
+                return dictionary;
+            }
+        }
+
+        BoggleDictionary dictionary = BoggleDictionary.load(option);
+        if (file.exists() && dictionary.writeMapped(mappedpath)) {
+            BoggleDictionary mappedDictionary = map(mappedpath);
+            if (mappedDictionary != null) {
+                return mappedDictionary;
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the BoggleDictionaryMapped object of the given mapped file, null if
+     * the file is missing, corrupted or in other version.
+     *
+     * @param filepath the given String of mapped file path
+     * @return BoggleDictionaryMapped object of the given mapped file
+     */
+    public static BoggleDictionaryMapped map(String filepath) {
+        File file = new File(filepath);
+        if (!file.exists()) {
+            System.out.println(filepath + " not found.");
+            return null;
+        }
+
+        // the mapping stay valid after the channel is closed
+        try (RandomAccessFile in = new RandomAccessFile(file, "r");
+                FileChannel channel = in.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("mapped dictionary too large");
+            }
+            return new BoggleDictionaryMapped(channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size()));
+        } catch (IOException ex) {
+            System.out.println(filepath + " " + ex.getMessage() + ", mapped file ignored.");
+            return null;
+        }
+    }
+
+    // write the given dictionary storage to the given file in mapped layout, write
+    // to a temporary file then rename it, other processes never map a partial file
+    static boolean write(String filepath, int[] flags, int[] trieRows, int[] radixIdx,
+            byte[] radixLength, byte[] radix, int[] wordOffset, byte[] wordBytes,
+            int[] wordId, int[] wordSlot, int[] letterMask, short[] maxWordLength) {
+        int size = HEADER * 4 + (trieRows.length + radixIdx.length + wordOffset.length
+                + wordId.length + wordSlot.length + letterMask.length) * 4
+                + maxWordLength.length * 2 + radixLength.length + radix.length
+                + wordBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAPPED_MAGIC);
+        buffer.putInt(MAPPED_VERSION);
+        for (int flag : flags) {
+            buffer.putInt(flag);
+        }
+        buffer.putInt(trieRows.length);
+        buffer.putInt(radixIdx.length);
+        buffer.putInt(radix.length);
+        buffer.putInt(wordId.length);
+        buffer.putInt(wordBytes.length);
+        buffer.putInt(wordSlot.length);
+        buffer.putInt(letterMask.length);
+        buffer.position(HEADER * 4);
+        buffer.asIntBuffer().put(trieRows).put(radixIdx).put(wordOffset).put(wordId)
+                .put(wordSlot).put(letterMask);
+        buffer.position(size - maxWordLength.length * 2 - radixLength.length
+                - radix.length - wordBytes.length);
+        buffer.asShortBuffer().put(maxWordLength);
+        buffer.position(size - radixLength.length - radix.length - wordBytes.length);
+        buffer.put(radixLength);
+        buffer.put(radix);
+        buffer.put(wordBytes);
+        buffer.flip();
+
+        File file = new File(filepath);
+        File temp = null;
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile()
+                    .getParentFile());
+            try (RandomAccessFile out = new RandomAccessFile(temp, "rw");
+                    FileChannel channel = out.getChannel()) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            if (temp != null) {
+                temp.delete();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns false, the mapped dictionary is restored from the mapped file only.
+     *
+     * @param filepath the given String of snapshot file path
+     * @return boolean represent the snapshot has been written, always false
+     */
+    @Override
+    public boolean writeSnapshot(String filepath) {
+        System.out.println("Snapshot is not supported by mapped dictionary.");
+        return false;
+    }
+
+    /**
+     * Returns false, the mapped dictionary is restored from the mapped file only.
+     *
+     * @param filepath the given String of mapped file path
+     * @return boolean represent the mapped file has been written, always false
+     */
+    @Override
+    public boolean writeMapped(String filepath) {
+        System.out.println("Mapped dictionary is already in mapped file.");
+        return false;
+    }
+
+    @Override
+    protected int getNextKey(int key, int ch) {
+        return trie.get(key * 26 + ch);
+    }
+
+    @Override
+    protected int getTrieSize() {
+        return endTrie;
+    }
+
+    @Override
+    protected long getTrieMemory() {
+        return 0;
+    }
+
+    /**
+     *  Returns the number of bytes of the mapped file.
+     *
+     *  @return number of bytes of the mapped file
+     */
+    public long getMappedSize() {
+        return size;
+    }
+
+    @Override
+    protected boolean hasTrie(int key) {
+        return key < endTrie;
+    }
+
+    @Override
+    protected boolean hasRadix(int key) {
+        return key > hasRadix && key < endRadix;
+    }
+
+    @Override
+    protected int getRadixInit(int key) {
+        return radixIdx.get(key - hasRadix);
+    }
+
+    @Override
+    protected int getRadixLength(int key) {
+        return radixLength.get(key - hasRadix);
+    }
+
+    @Override
+    protected byte getNextCharIndex(int pos) {
+        return (byte) (radix.get(pos) - OFFSET);
+    }
+
+    @Override
+    protected int getLetterMask(int key) {
+        return letterMask.get(key);
+    }
+
+    @Override
+    protected int getMaxWordLength(int key) {
+        return maxWordLength.get(key);
+    }
+
+    @Override
+    protected int getWordIndex(int key, int num) {
+        if (key <= hasWordGroup1 || (key > hasRadix && key <= hasWordGroup2)) {
+            return 0;
+        }
+        return key - hasWordGroup1;
+    }
+
+    // the String is immutable, the search threads may decode the same word at the
+    // same time, either copy is kept
+    @Override
+    protected String getWord(int wordIdx) {
+        String word = words[wordIdx];
+        if (word == null) {
+            word = decodeWord(wordIdx);
+            words[wordIdx] = word;
+        }
+        return word;
+    }
+
+    // return the String of the given word index read from the mapped file, null if
+    // not a word
+    private String decodeWord(int wordIdx) {
+        int start = wordOffset.get(wordIdx);
+        int end = wordOffset.get(wordIdx + 1);
+        if (start == end) {
+            return null;
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = wordBytes.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    protected int getWordIdByIndex(int wordIdx) {
+        return wordId.get(wordIdx);
+    }
+
+    @Override
+    protected int getWordIndexById(int id) {
+        return wordSlot.get(id);
+    }
+
+    @Override
+    public int getWordCount() {
+        return wordSlot.limit();
+    }
+
+    @Override
+    protected int getWordLength(int wordIdx) {
+        return wordOffset.get(wordIdx + 1) - wordOffset.get(wordIdx);
+    }
+
+    @Override
+    protected int getWordIndexSize() {
+        return wordId.limit();
+    }
+}
@@ -0,0 +1,95 @@
+package mwong.myprojects.boggle;
+
+/**
+ * BoggleDictionaryNarrow is the BoggleDictionary with 16 bits index of next trie
+ * set.  If all keys of the dictionary fit in 16 bits, the 26-way rows store each
+ * next key as an unsigned char instead of an integer, half of the memory of the
+ * next trie set and more rows in cache.  BoggleSolver select it's own search loop
+ * for this class once per dictionary, the loop read the char rows, the letter
+ * masks and the word length bounds directly, no call per next key whatever other
+ * dictionary classes are searched in the process.  getNextKey serve the other
+ * users of the dictionary.
+ *
+ * <p>Dependencies : BoggleDictionary.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleDictionaryNarrow extends BoggleDictionary {
+    private static final int MAX_KEY = Character.MAX_VALUE;
+    private char[] trieR26;
+
+    /**
+     * Initializes the BoggleDictionaryNarrow object from the given BoggleDictionary,
+     * share the words and radix storage.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @throws IllegalArgumentException if the keys do not fit in 16 bits
+     */
+    public BoggleDictionaryNarrow(BoggleDictionary dictionary) {
+        super(dictionary);
+        if (!fits(dictionary)) {
+            throw new IllegalArgumentException("Dictionary keys do not fit in 16 bits");
+        }
+        int size = getTrieSize();
+        trieR26 = new char[size * 26];
+        for (int key = 0; key < size; key++) {
+            for (int ch = 0; ch < 26; ch++) {
+                trieR26[key * 26 + ch] = (char) dictionary.getNextKey(key, ch);
+            }
+        }
+    }
+
+    /**
+     * Returns the boolean represent all next keys of the given dictionary fit in
+     * 16 bits.
+     *
+     * @param dictionary the given BoggleDictionary object
+     * @return boolean represent all next keys fit in 16 bits
+     */
+    public static boolean fits(BoggleDictionary dictionary) {
+        if (dictionary == null || dictionary.isEmpty()) {
+            return false;
+        }
+        int size = dictionary.getTrieSize();
+        for (int key = 0; key < size; key++) {
+            for (int ch = 0; ch < 26; ch++) {
+                if (dictionary.getNextKey(key, ch) > MAX_KEY) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  Returns the number of next key in trie of the given character index,
+     *  0 if not exists.
+     *
+     *  @param key the number of current key
+     *  @param ch the number of character index
+     *  @return number of next key in trie, 0 if not exists
+     */
+    @Override
+    protected int getNextKey(int key, int ch) {
+        return trieR26[key * 26 + ch];
+    }
+
+    // return the 26-way rows of next key in 16 bits, read by the search loop of
+    // BoggleSolver
+    char[] getTrieRows() {
+        return trieR26;
+    }
+
+    /**
+     *  Returns the number of bytes of the storage of next trie set.
+     *
+     *  @return number of bytes of the storage of next trie set
+     */
+    @Override
+    protected long getTrieMemory() {
+        return trieR26.length * 2L;
+    }
+}
@@ -0,0 +1,78 @@
+package mwong.myprojects.boggle;
+
+/**
+ * BoggleScore is the data type of the totals of a Boggle board search: the total
+ * scores, the number of words and the number of words of each word length.
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleScore {
+    private int scores;
+    private int count;
+    private int[] histogram;
+
+    /**
+     * Initializes a BoggleScore object with the given totals.
+     *
+     * @param scores the number of total scores
+     * @param count the number of words
+     * @param histogram the number of words of each word length, indexed by length
+     */
+    BoggleScore(int scores, int count, int[] histogram) {
+        this.scores = scores;
+        this.count = count;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Returns the number of total scores of all words.
+     *
+     * @return number of total scores of all words
+     */
+    public int getScores() {
+        return scores;
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return number of words
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of words of the given word length.
+     *
+     * @param length the given word length
+     * @return number of words of the given word length
+     */
+    public int getCount(int length) {
+        if (length < 0 || length >= histogram.length) {
+            return 0;
+        }
+        return histogram[length];
+    }
+
+    /**
+     * Returns the number of the longest word length.
+     *
+     * @return number of the longest word length, zero if no words
+     */
+    public int getMaxLength() {
+        return histogram.length - 1;
+    }
+
+    /**
+     * Returns the integer array of number of words of each word length, indexed by length.
+     *
+     * @return integer array of number of words of each word length
+     */
+    public int[] getHistogram() {
+        return histogram.clone();
+    }
+}
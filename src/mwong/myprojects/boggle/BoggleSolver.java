@@ -1,12 +1,19 @@
 package mwong.myprojects.boggle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * BoggleSolver provide the function to find all words on the Boggle board
  * based on the given BoggleDictionary object.
  *
- * <p>Dependencies : BoggleBoard.java, BoggleBoardPlus.java, BoggleDictionary.java
+ * <p>Dependencies : BoggleBoard.java, BoggleBoardPlus.java, BoggleDictionary.java,
+ *                   BoggleScore.java, BoggleSolverContext.java, BoggleTopWords.java,
+ *                   WordSink.java
  *
  * @author Meisze Wong
  *         www.linkedin.com/pub/macy-wong/46/550/37b/
@@ -16,12 +23,48 @@ import java.util.ArrayList;
 public class BoggleSolver {
     private static final int OFFSET = BoggleDictionary.getOffset();
     private static final int IDX_Q = BoggleDictionary.getIdxQ();
+    // stack frame layout: dice, trie key, radix position, end of radix,
+    // next neighbor, the number of words before the trie cursor and the
+    // number of letters of the path
+    private static final int KEY = 1;
+    private static final int POS = 2;
+    private static final int END = 3;
+    private static final int NBR = 4;
+    private static final int NUM = 5;
+    private static final int LEN = 6;
+    private static final int FRAME = 7;
+    // number of dices of the visited bitmask in a long
+    private static final int MASK_SIZE = 64;
+    // number of dices tried by findPath before it checks the rest of the letters fit
+    // on the dices reachable from the end of the path
+    private static final int FIT_AFTER = 64;
     private BoggleDictionary trie;
-    private ArrayList<String> words;
+    // the 16-bit rows, letter masks and word length bounds of the narrow dictionary,
+    // null for the other layouts
+    private char[] narrowRows;
+    private int[] narrowMasks;
+    private short[] narrowLengths;
+    private BoggleSolverContext context;
+    // idle worker solvers of the parallel searches of this solver
+    private ConcurrentLinkedQueue<BoggleSolver> workers;
+    private BoggleBoardPlus dices;
+    private double boardsPerSecond;
+    private int minWordLength;
+    private int maxWordLength;
+    private int floorLength;
     private int[] faceIdx;
     private int[] nbrs;
     private int[] doubleIdx;
     private boolean[] isDouble;
+    private boolean hasDouble;
+    private int missing;
+    private int[] stack;
+    private long[] visitedHigh;
+    private WordSink sink;
+    private BoggleTopWords topWords;
+    private boolean stopped;
+    private int cursorPos;
+    private int cursorNum;
 
     /**
      *  Initializes the BoggleSolver with a given BoggleDictionary object.
@@ -33,11 +76,52 @@ public class BoggleSolver {
             throw new IllegalArgumentException("Dictionnary is mandatory");
         }
         trie = dictionary;
+        loadLayout();
+        context = new BoggleSolverContext();
+        workers = new ConcurrentLinkedQueue<BoggleSolver>();
+        minWordLength = 0;
+        maxWordLength = Integer.MAX_VALUE;
     }
 
-    // set the dictionary with the given BoggleDictionary object
+    // set the dictionary with the given BoggleDictionary object, release the
+    // worker solvers and their search storage of previous dictionary
     void setDictionary(BoggleDictionary dictionary) {
         trie = dictionary;
+        loadLayout();
+        workers.clear();
+    }
+
+    // select the search loop of the dictionary once: searchDiceNarrow read the
+    // arrays of the 16-bit rows dictionary, searchDice call the dictionary of any
+    // other layout
+    private void loadLayout() {
+        narrowRows = null;
+        narrowMasks = null;
+        narrowLengths = null;
+        if (trie instanceof BoggleDictionaryNarrow && trie.getLetterMasks() != null
+                && trie.getMaxWordLengths() != null) {
+            narrowRows = ((BoggleDictionaryNarrow) trie).getTrieRows();
+            narrowMasks = trie.getLetterMasks();
+            narrowLengths = trie.getMaxWordLengths();
+        }
+    }
+
+    /**
+     *  Set the minimum and maximum word length of all searches, the words out of
+     *  the bounds are not found.  The search skip the trie keys of no word long
+     *  enough below it, and stop at the maximum word length.  Qu counts 2 letters.
+     *  Default 0 and Integer.MAX_VALUE, all words.
+     *
+     *  @param minWordLength the number of minimum word length
+     *  @param maxWordLength the number of maximum word length
+     */
+    public void setWordLength(int minWordLength, int maxWordLength) {
+        if (minWordLength < 0 || maxWordLength < minWordLength) {
+            throw new IllegalArgumentException("Invalid word length : " + minWordLength
+                    + " - " + maxWordLength);
+        }
+        this.minWordLength = minWordLength;
+        this.maxWordLength = maxWordLength;
     }
 
     /**
@@ -54,381 +138,1054 @@ public class BoggleSolver {
             return new ArrayList<String>();
         }
         // increment the marker for new search
-        trie.updateMarker();
-        words = new ArrayList<String>();
+        context.reset(trie);
+
+        // load and convert the BoggleBoard to BoggleSolver properties
+        loadBoard(board);
+        searchBoard();
+        return getFoundWords();
+    }
+
+    /**
+     *  Returns the integer array of word ids of all valid words in the given Boggle
+     *  board, in the same order of getAllValidWords.  Word ids are in lexicographic
+     *  order of the dictionary, use BoggleDictionary.wordAt to get the String of word.
+     *
+     *  @param board the BoggleBoard object
+     *  @return integer array of word ids of all valid words in the given Boggle board
+     */
+    public int[] getAllValidWordIds(BoggleBoard board) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty()) {
+            return new int[0];
+        }
+        // increment the marker for new search
+        context.reset(trie);
+
+        // load and convert the BoggleBoard to BoggleSolver properties
+        loadBoard(board);
+        searchBoard();
+
+        int[] ids = context.toArray();
+        for (int idx = 0; idx < ids.length; idx++) {
+            ids[idx] = trie.getWordIdByIndex(ids[idx]);
+        }
+        return ids;
+    }
+
+    /**
+     *  Returns the number of all valid words in the given Boggle board, and store the
+     *  word ids in the given buffer up to it's length, in the same order of
+     *  getAllValidWords.  No storage is allocated after the first search of the same
+     *  board size, retry with a larger buffer if the number of words is greater than
+     *  the buffer length.  Use BoggleDictionary.wordAt to get the String of word.
+     *
+     *  @param board the BoggleBoard object
+     *  @param buffer the given integer array to store the word ids
+     *  @return number of all valid words in the given Boggle board
+     */
+    public int getAllValidWordIds(BoggleBoard board, int[] buffer) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer is mandatory");
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty()) {
+            return 0;
+        }
+        // increment the marker for new search
+        context.reset(trie);
+
+        // load and convert the BoggleBoard to BoggleSolver properties
+        loadBoard(board);
+        searchBoard();
+
+        int size = context.size();
+        int count = Math.min(size, buffer.length);
+        for (int idx = 0; idx < count; idx++) {
+            buffer[idx] = trie.getWordIdByIndex(context.get(idx));
+        }
+        return size;
+    }
+
+    /**
+     *  Returns the number of valid words in the given Boggle board pushed to the given
+     *  WordSink.  Each new word is pushed as soon as it is found, the search stop
+     *  immediately when the WordSink returns false.
+     *
+     *  @param board the BoggleBoard object
+     *  @param sink the given WordSink object
+     *  @return number of valid words in the given Boggle board pushed to the WordSink
+     */
+    public int solve(BoggleBoard board, WordSink sink) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("WordSink is mandatory");
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty()) {
+            return 0;
+        }
+        // increment the marker for new search
+        context.reset(trie);
+
+        // load and convert the BoggleBoard to BoggleSolver properties
+        loadBoard(board);
+        this.sink = sink;
+        try {
+            searchBoard();
+        } finally {
+            this.sink = null;
+        }
+        return context.size();
+    }
+
+    /**
+     *  Returns the list of the given number of longest valid words in the given Boggle
+     *  board, the longest first and in lexicographic order of the same length, within
+     *  the word length bounds of the solver.  The score of a word never decrease with
+     *  it's length, they are the highest scoring words too.  The words found are kept
+     *  in a bounded min heap, once it is full the search skip the trie keys of no word
+     *  as long as the shortest word in the heap.
+     *
+     *  @param board the BoggleBoard object
+     *  @param count the number of words, Integer.MAX_VALUE for all words
+     *  @return list of the given number of longest valid words in the given Boggle board
+     */
+    public List<String> getTopWords(BoggleBoard board, int count) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid number of words : " + count);
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty() || count == 0) {
+            return new ArrayList<String>();
+        }
+        // increment the marker for new search
+        context.reset(trie);
+
+        // load and convert the BoggleBoard to BoggleSolver properties
+        loadBoard(board);
+        // no more words than the dictionary, count may be Integer.MAX_VALUE for all
+        topWords = new BoggleTopWords(Math.min(count, trie.getWordCount()));
+        int[] found;
+        try {
+            searchBoard();
+            found = topWords.toArray();
+        } finally {
+            topWords = null;
+        }
+
+        ArrayList<String> words = new ArrayList<String>(found.length);
+        for (int wordIdx : found) {
+            words.add(trie.getWord(wordIdx));
+        }
+        return words;
+    }
+
+    /**
+     *  Returns the integer array of dices of a path of the given word on the given
+     *  Boggle board, null if the word cannot be traced on the board.  Each dice is
+     *  numbered row * size + column, a dice is used once.  The Qu dice match "QU"
+     *  of the word, and a double letters dice match both of it's letters.  The word
+     *  is not checked in the dictionary, use scoreOf for it.  Search from the dices
+     *  of the first letter only.  The word of more letters than the dices of the
+     *  board, or of any letter more than the dices carrying it, is rejected before
+     *  the search.
+     *
+     *  @param board the BoggleBoard object
+     *  @param word the given string
+     *  @return integer array of dices of a path of the given word, null if not exists
+     */
+    public int[] findPath(BoggleBoard board, String word) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (word == null) {
+            throw new IllegalArgumentException("Word is mandatory");
+        }
+        int size = board.getSize() * board.getSize();
+        if (size < 2 || word.length() == 0 || word.length() > size * 2) {
+            return null;
+        }
+
+        // convert the word to character index, 'QU' is 'Q' as the dice
+        int[] letters = new int[word.length()];
+        int length = 0;
+        int mask = 0;
+        for (int idx = 0; idx < word.length(); idx++) {
+            int ch = Character.toUpperCase(word.charAt(idx)) - OFFSET;
+            if (ch < 0 || ch > 25) {
+                return null;
+            }
+            if (ch == IDX_Q) {
+                if (idx + 1 == word.length()
+                        || Character.toUpperCase(word.charAt(idx + 1)) != 'U') {
+                    return null;
+                }
+                idx++;
+            }
+            letters[length++] = ch;
+            mask |= 1 << ch;
+        }
+
+        loadBoard(board);
+        if ((mask & missing) != 0) {
+            return null;
+        }
+        // reject the word longer than the board, or need more of a letter than the
+        // dices carrying it, before any search
+        PathTrace trace = new PathTrace(letters, length);
+        if (!trace.fits(0, -1)) {
+            return null;
+        }
+        for (int id = 0; id < faceIdx.length; id++) {
+            if (faceIdx[id] == letters[0]) {
+                int count = trace.trace(0, id, 0);
+                if (count > 0) {
+                    return Arrays.copyOf(trace.path, count);
+                }
+            }
+        }
+        return null;
+    }
+
+    // depth first search of a path of the given letters on current board; after
+    // FIT_AFTER dices tried, a branch is dropped once the rest of the letters cannot
+    // fit on the dices still reachable from the end of the path
+    private class PathTrace {
+        private final int[] letters;
+        private final int length;
+        private final int[] path;
+        private final boolean[] used;
+        private final int[] need;
+        private final int[] supply;
+        private int[] queue;
+        private int[] mark;
+        private int stamp;
+        private int tried;
+
+        PathTrace(int[] letters, int length) {
+            this.letters = letters;
+            this.length = length;
+            path = new int[length];
+            used = new boolean[faceIdx.length];
+            need = new int[26];
+            supply = new int[26];
+            for (int pos = 0; pos < length; pos++) {
+                need[letters[pos]]++;
+            }
+        }
+
+        // depth first search the rest of the letters from the given position on the
+        // given dice, the dices of the path so far are stored in path; return the
+        // number of dices of the path of the whole word, 0 if not found
+        int trace(int pos, int id, int depth) {
+            if (used[id] || faceIdx[id] != letters[pos]) {
+                return 0;
+            }
+            int next = pos + 1;
+            if (isDouble[id]) {
+                if (next == length || doubleIdx[id] != letters[next]) {
+                    return 0;
+                }
+                next++;
+            }
+            path[depth++] = id;
+            if (next == length) {
+                return depth;
+            }
+            used[id] = true;
+            for (int idx = pos; idx < next; idx++) {
+                need[letters[idx]]--;
+            }
+            int count = 0;
+            // the last letter is checked by the neighbors directly, most words are
+            // traced or rejected before the reachable dices are checked
+            if (next + 1 == length || ++tried <= FIT_AFTER || fits(next, id)) {
+                for (int idx = nbrs[id]; idx < nbrs[id + 1] && count == 0; idx++) {
+                    count = trace(next, nbrs[idx], depth);
+                }
+            }
+            used[id] = false;
+            for (int idx = pos; idx < next; idx++) {
+                need[letters[idx]]++;
+            }
+            return count;
+        }
+
+        // return true if the letters from the given position can fit on the dices
+        // not used and connected to the neighbors of the given dice, all dices if
+        // the given dice is -1: no more letters than the dices (a double letters dice
+        // cover 2), and no more of each letter than the dices carrying it
+        boolean fits(int pos, int id) {
+            Arrays.fill(supply, 0);
+            int capacity = 0;
+            if (id == -1) {
+                for (int id2 = 0; id2 < faceIdx.length; id2++) {
+                    if (faceIdx[id2] != -1) {
+                        capacity += supply(id2);
+                    }
+                }
+            } else {
+                if (queue == null) {
+                    queue = new int[faceIdx.length];
+                    mark = new int[faceIdx.length];
+                }
+                stamp++;
+                int tail = reach(id, 0);
+                for (int head = 0; head < tail; head++) {
+                    capacity += supply(queue[head]);
+                    tail = reach(queue[head], tail);
+                }
+            }
+            if (length - pos > capacity) {
+                return false;
+            }
+            for (int ch = 0; ch < 26; ch++) {
+                if (need[ch] > supply[ch]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // count the letters of the given dice in supply, return the number of letters
+        private int supply(int id) {
+            supply[faceIdx[id]]++;
+            if (isDouble[id]) {
+                supply[doubleIdx[id]]++;
+                return 2;
+            }
+            return 1;
+        }
+
+        // add the unused dices next to the given dice not reached yet to the queue,
+        // return the new end of the queue
+        private int reach(int id, int tail) {
+            for (int idx = nbrs[id]; idx < nbrs[id + 1]; idx++) {
+                int id2 = nbrs[idx];
+                if (!used[id2] && faceIdx[id2] != -1 && mark[id2] != stamp) {
+                    mark[id2] = stamp;
+                    queue[tail++] = id2;
+                }
+            }
+            return tail;
+        }
+    }
+
+    /**
+     *  Returns the BoggleScore of total scores, number of words and number of words
+     *  of each length in the given Boggle board, count the words of the given minimum
+     *  word length only.  The scores are based on the word length stored in the
+     *  dictionary, minimum 3 characters uses scoreOf scoring, scoreOfBig otherwise.
+     *  The words out of the word length bounds of the solver are not counted.
+     *  No String of word is used.
+     *
+     *  @param board the BoggleBoard object
+     *  @param minWordLength the number of minimum word length
+     *  @return BoggleScore of total scores, number of words and number of words of
+     *      each length in the given Boggle board
+     */
+    public BoggleScore score(BoggleBoard board, int minWordLength) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty()) {
+            return new BoggleScore(0, 0, new int[1]);
+        }
+        // increment the marker for new search
+        context.reset(trie);
 
         // load and convert the BoggleBoard to BoggleSolver properties
-        BoggleBoardPlus dices = new BoggleBoardPlus(board, OFFSET);
-        // temporary set to negative negative during the search
-        // restore it back when done for next search
+        loadBoard(board);
+        searchBoard();
+
+        int size = context.size();
+        int maxLength = 0;
+        for (int idx = 0; idx < size; idx++) {
+            maxLength = Math.max(maxLength, trie.getWordLength(context.get(idx)));
+        }
+        int[] histogram = new int[maxLength + 1];
+        for (int idx = 0; idx < size; idx++) {
+            histogram[trie.getWordLength(context.get(idx))]++;
+        }
+        int scores = 0;
+        int count = 0;
+        for (int length = Math.max(minWordLength, 0); length <= maxLength; length++) {
+            scores += histogram[length] * scoreOfLength(length, minWordLength);
+            count += histogram[length];
+        }
+        for (int length = 0; length < minWordLength && length <= maxLength; length++) {
+            histogram[length] = 0;
+        }
+        return new BoggleScore(scores, count, histogram);
+    }
+
+    /**
+     *  Returns the set of all valid words in the given Boggle board, as an Iterable.
+     *  Search each starting dice in parallel with common ForkJoinPool, words are in
+     *  the same order of getAllValidWords.
+     *
+     *  @param board the BoggleBoard object
+     *  @return set of all valid words in the given Boggle board, as an Iterable
+     */
+    public Iterable<String> getAllValidWordsParallel(BoggleBoard board) {
+        return getAllValidWordsParallel(board, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *  Returns the set of all valid words in the given Boggle board, as an Iterable.
+     *  Search each starting dice in parallel with the given ForkJoinPool, words are
+     *  in the same order of getAllValidWords.
+     *
+     *  @param board the BoggleBoard object
+     *  @param pool the given ForkJoinPool
+     *  @return set of all valid words in the given Boggle board, as an Iterable
+     */
+    public Iterable<String> getAllValidWordsParallel(BoggleBoard board, ForkJoinPool pool) {
+        if (board == null) {
+            throw new IllegalArgumentException("Board is mandatory");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("ForkJoinPool is mandatory");
+        }
+        if (board.getSize() * board.getSize() < 2  || trie.isEmpty()) {
+            return new ArrayList<String>();
+        }
+
+        loadBoard(board);
+        int[][] found = new int[faceIdx.length][];
+        pool.invoke(new StartDiceSearch(0, faceIdx.length, found));
+
+        // merge in order of starting dice, skip the words found from previous dices
+        context.reset(trie);
+        for (int[] list : found) {
+            for (int wordIdx : list) {
+                context.add(wordIdx);
+            }
+        }
+        return getFoundWords();
+    }
+
+    /**
+     *  Returns the list of all valid words of each given Boggle board, in the same
+     *  order of the boards.  The boards are searched in parallel with common
+     *  ForkJoinPool, each task reuse an idle worker solver and it's search storage,
+     *  the workers are released when the dictionary is changed.
+     *
+     *  @param boards the Iterable of BoggleBoard objects
+     *  @return list of all valid words of each given Boggle board
+     */
+    public List<Iterable<String>> solveAll(Iterable<BoggleBoard> boards) {
+        return solveAll(boards, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *  Returns the list of all valid words of each given Boggle board, in the same
+     *  order of the boards.  The boards are searched in parallel with the given
+     *  ForkJoinPool, each task reuse an idle worker solver and it's search storage,
+     *  the workers are released when the dictionary is changed.
+     *
+     *  @param boards the Iterable of BoggleBoard objects
+     *  @param pool the given ForkJoinPool
+     *  @return list of all valid words of each given Boggle board
+     */
+    public List<Iterable<String>> solveAll(Iterable<BoggleBoard> boards, ForkJoinPool pool) {
+        if (boards == null) {
+            throw new IllegalArgumentException("Boards is mandatory");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("ForkJoinPool is mandatory");
+        }
+        ArrayList<BoggleBoard> list = new ArrayList<BoggleBoard>();
+        for (BoggleBoard board : boards) {
+            if (board == null) {
+                throw new IllegalArgumentException("Board is mandatory");
+            }
+            list.add(board);
+        }
+
+        long start = System.nanoTime();
+        Iterable<String>[] results = newResults(list.size());
+        pool.invoke(new BatchSearch(list, 0, list.size(), results));
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        boardsPerSecond = list.size() * 1e9 / elapsed;
+
+        ArrayList<Iterable<String>> found = new ArrayList<Iterable<String>>(results.length);
+        for (Iterable<String> words : results) {
+            found.add(words);
+        }
+        return found;
+    }
+
+    /**
+     *  Returns the number of boards searched per second of last solveAll.
+     *
+     *  @return number of boards searched per second of last solveAll
+     */
+    public double getBoardsPerSecond() {
+        return boardsPerSecond;
+    }
+
+    // return a new array of search results of the given size
+    @SuppressWarnings("unchecked")
+    private static Iterable<String>[] newResults(int size) {
+        return (Iterable<String>[]) new Iterable<?>[size];
+    }
+
+    // return an idle worker solver of the same dictionary, a new one if none; the
+    // number of workers is the most tasks running at the same time, not the number
+    // of threads ever used
+    private BoggleSolver acquireWorker() {
+        BoggleSolver worker = workers.poll();
+        while (worker != null && worker.trie != trie) {
+            worker = workers.poll();
+        }
+        if (worker == null) {
+            worker = new BoggleSolver(trie);
+        }
+        worker.minWordLength = minWordLength;
+        worker.maxWordLength = maxWordLength;
+        worker.floorLength = minWordLength;
+        return worker;
+    }
+
+    // return the given worker solver to the idle workers, drop it if the dictionary
+    // has been changed
+    private void releaseWorker(BoggleSolver worker) {
+        if (worker.trie == trie) {
+            workers.offer(worker);
+        }
+    }
+
+    // load and convert the BoggleBoard to BoggleSolver properties
+    private void loadBoard(BoggleBoard board) {
+        if (dices == null) {
+            dices = new BoggleBoardPlus(board, OFFSET);
+        } else {
+            dices.load(board);
+        }
+        // board properties are read only during the search, dices visited are
+        // tracked by bitmask
         faceIdx = dices.getFaceIdx();
         nbrs = dices.getNbrs();
         isDouble = dices.isDouble();
         doubleIdx = dices.getDoubleIdx();
-        boolean doubleBoard = false;
-        for (boolean key : isDouble) {
-            if (key) {
-                doubleBoard = true;
-                break;
+        hasDouble = false;
+        for (boolean value : isDouble) {
+            hasDouble |= value;
+        }
+        // mask of letters not on the board, skip the trie key of any word below
+        // it need one of these letters
+        int present = 0;
+        for (int id = 0; id < faceIdx.length; id++) {
+            if (faceIdx[id] != -1) {
+                present |= 1 << faceIdx[id];
+            }
+            if (isDouble[id]) {
+                present |= 1 << doubleIdx[id];
             }
         }
-        if (doubleBoard) {
-            searchBoardDouble();
-        } else {
-            searchBoard();
+        missing = ~present & ((1 << 26) - 1);
+        loadStack(faceIdx.length);
+        // clear the visited dices left by a search stopped by exception
+        Arrays.fill(visitedHigh, 0);
+    }
+
+    // allocate the search stack and the visited bitmask of the dices beyond the
+    // first 64 of the given number of dices if needed
+    private void loadStack(int size) {
+        if (stack == null || stack.length != size * FRAME) {
+            stack = new int[size * FRAME];
+            visitedHigh = new long[Math.max(size - 1, 0) / MASK_SIZE];
+        }
+    }
+
+    // return the list of words found in current search
+    private ArrayList<String> getFoundWords() {
+        int size = context.size();
+        ArrayList<String> words = new ArrayList<String>(size);
+        for (int idx = 0; idx < size; idx++) {
+            words.add(trie.getWord(context.get(idx)));
         }
         return words;
     }
 
-    // search the boggle board to find all words
-    private void searchBoard() {
-        // Identify each pair of the first two characters, then use depth
-        // first search to find all words exists in given dictionary
-        for (int i = 0; i < faceIdx.length; i++) {
-            if (faceIdx[i] == -1) {
-                continue;
+    // fork join task of a range of starting dices, each starting dice search by
+    // an idle worker solver, the board properties are shared
+    private class StartDiceSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int start;
+        private final int end;
+        private final int[][] found;
+
+        StartDiceSearch(int start, int end, int[][] found) {
+            this.start = start;
+            this.end = end;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new StartDiceSearch(start, mid, found),
+                        new StartDiceSearch(mid, end, found));
+                return;
             }
 
-            int ch0 = faceIdx[i];
-            faceIdx[i] = -1;
-            int last = nbrs[i + 1];
-            for (int idx = nbrs[i]; idx < last; idx++) {
-                int id = nbrs[idx];
-                int ch1 = faceIdx[id];
-                int key = trie.getNextKey(ch0 * 26 + ch1);
+            BoggleSolver worker = acquireWorker();
+            try {
+                worker.faceIdx = faceIdx;
+                worker.nbrs = nbrs;
+                worker.isDouble = isDouble;
+                worker.hasDouble = hasDouble;
+                worker.doubleIdx = doubleIdx;
+                worker.missing = missing;
+                worker.loadStack(faceIdx.length);
+                worker.context.reset(trie);
+                worker.searchStart(start);
+                found[start] = worker.context.toArray();
+            } finally {
+                releaseWorker(worker);
+            }
+        }
+    }
 
-                if (ch0 == IDX_Q) {
-                    String word = trie.getWordQ2(key);
-                    if (word != null) {
-                        words.add(word);
-                    }
-                }
+    // fork join task of a range of boards, each board search by an idle worker
+    // solver
+    private class BatchSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8;
+        private final List<BoggleBoard> boards;
+        private final int start;
+        private final int end;
+        private final Iterable<String>[] results;
 
-                if (key > 0) {
-                    faceIdx[id] = -1;
-                    if (trie.hasRadix(key)) {
-                        findWordsDFS(id, key, trie.getRadixInit(key),
-                                trie.getRadixLength(key) - 1, trie.hasTrie(key));
-                    } else {
-                        findWordsDFS(id, key, -1, -1, true);
-                    }
-                    faceIdx[id] = ch1;
+        BatchSearch(List<BoggleBoard> boards, int start, int end, Iterable<String>[] results) {
+            this.boards = boards;
+            this.start = start;
+            this.end = end;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > THRESHOLD) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new BatchSearch(boards, start, mid, results),
+                        new BatchSearch(boards, mid, end, results));
+                return;
+            }
+
+            BoggleSolver worker = acquireWorker();
+            try {
+                for (int idx = start; idx < end; idx++) {
+                    results[idx] = worker.getAllValidWords(boards.get(idx));
                 }
+            } finally {
+                releaseWorker(worker);
             }
-            faceIdx[i] = ch0;
         }
     }
 
-    // search the boggle board with double letters to find all words
-    private void searchBoardDouble() {
-        // Identify each pair of the first two characters, then use depth
-        // first search to find all words exists in given dictionary
-        for (int id0 = 0; id0 < faceIdx.length; id0++) {
-            if (faceIdx[id0] == -1) {
+    // search the boggle board to find all words, until the word sink stop the search
+    private void searchBoard() {
+        stopped = false;
+        floorLength = minWordLength;
+        for (int id = 0; id < faceIdx.length && !stopped; id++) {
+            searchStart(id);
+        }
+    }
+
+    // search the given starting dice with the search loop of the dictionary
+    private void searchStart(int start) {
+        if (narrowRows != null) {
+            searchDiceNarrow(start);
+        } else {
+            searchDice(start);
+        }
+    }
+
+    // iterative depth first search the Boggle board from the given starting dice,
+    // add all new words to the found words.  Each stack frame store the dice, the
+    // trie cursor (key and radix position, -1 at end of radix), end of radix and
+    // the next neighbor to visit; the current frame is kept in local variables with
+    // the expected radix character cached, -1 at end of radix.  The visited dices
+    // is a bitmask in a long of first 64 dices, and a bitset of remaining dices
+    // for larger board, the board properties stay read only.  The number of words
+    // before the trie cursor is counted for the dictionary of shared suffixes.
+    // Double letters dice move the cursor twice.  The next key is skipped if all
+    // words below it need a letter not on the board, or no word below it reach
+    // the minimum word length (or the shortest word of the top words once it is
+    // full); the path stop at the maximum word length.
+    private void searchDice(int start) {
+        final BoggleDictionary trie = this.trie;
+        final int[] faceIdx = this.faceIdx;
+        final int[] nbrs = this.nbrs;
+        final boolean[] isDouble = this.isDouble;
+        final int[] doubleIdx = this.doubleIdx;
+        final int[] stack = this.stack;
+        final long[] visitedHigh = this.visitedHigh;
+        final boolean hasDouble = this.hasDouble;
+        final int missing = this.missing;
+        final int maxLength = maxWordLength;
+        int minLength = floorLength;
+
+        int ch0 = faceIdx[start];
+        if (ch0 == -1 || (trie.getLetterMask(ch0) & missing) != 0
+                || trie.getMaxWordLength(ch0, ch0 == IDX_Q ? 2 : 1) < minLength) {
+            return;
+        }
+        int len = (ch0 == IDX_Q ? 2 : 1) + (isDouble[start] ? 1 : 0);
+        if (len >= maxLength) {
+            return;
+        }
+        int key = ch0;
+        int pos = -1;
+        int num = 0;
+        if (isDouble[start]) {
+            key = moveCursor(key, pos, num, doubleIdx[start]);
+            if (key == -1) {
+                return;
+            }
+            pos = cursorPos;
+            num = cursorNum;
+        }
+        if (pos == -1 && !trie.hasTrie(key)) {
+            return;
+        }
+
+        int top = 0;
+        int id = start;
+        int end = pos == -1 ? 0 : trie.getRadixInit(key) + trie.getRadixLength(key);
+        int idx = nbrs[id];
+        int last = nbrs[id + 1];
+        int expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
+        long visited = 0;
+        if (id < MASK_SIZE) {
+            visited = 1L << id;
+        } else {
+            visitedHigh[id / MASK_SIZE - 1] |= 1L << id;
+        }
+        while (true) {
+            if (idx == last) {
+                // all neighbors visited, release the dice and back to previous frame
+                if (id < MASK_SIZE) {
+                    visited &= ~(1L << id);
+                } else {
+                    visitedHigh[id / MASK_SIZE - 1] &= ~(1L << id);
+                }
+                top -= FRAME;
+                if (top < 0) {
+                    return;
+                }
+                id = stack[top];
+                key = stack[top + KEY];
+                pos = stack[top + POS];
+                end = stack[top + END];
+                idx = stack[top + NBR];
+                num = stack[top + NUM];
+                len = stack[top + LEN];
+                last = nbrs[id + 1];
+                expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
                 continue;
             }
-            //System.out.println(id0);
-
-            int ch0 = faceIdx[id0];
-            if (isDouble[id0]) {
-                int key = trie.getNextKey(ch0 * 26 + doubleIdx[id0]);
-                if (key > 0) {
-                    faceIdx[id0] = -1;
-                    if (trie.hasRadix(key)) {
-                        findWordsDFSDouble(id0, key, trie.getRadixInit(key),
-                                trie.getRadixLength(key) - 1, trie.hasTrie(key));
-                    } else {
-                        findWordsDFSDouble(id0, key, -1, -1, true);
-                    }
-                    faceIdx[id0] = ch0;
+
+            int id2 = nbrs[idx++];
+            if (id2 < MASK_SIZE ? (visited & 1L << id2) != 0
+                    : (visitedHigh[id2 / MASK_SIZE - 1] & 1L << id2) != 0) {
+                continue;
+            }
+            int ch = faceIdx[id2];
+            int nextKey;
+            int nextPos;
+            int nextNum = num;
+            int nextLen = len + (ch == IDX_Q ? 2 : 1);
+            if (expect == -1) {
+                nextKey = trie.getNextKey(key, ch);
+                if (nextKey == 0 || (trie.getLetterMask(nextKey) & missing) != 0
+                        || trie.getMaxWordLength(nextKey, nextLen) < minLength) {
+                    continue;
                 }
+                nextPos = trie.hasRadix(nextKey) ? trie.getRadixInit(nextKey) : -1;
+                nextNum += trie.getNextNumber(key, ch);
             } else {
-                faceIdx[id0] = -1;
-                int last = nbrs[id0 + 1];
-                for (int idx = nbrs[id0]; idx < last; idx++) {
-                    int id1 = nbrs[idx];
-                    int ch1 = faceIdx[id1];
-                    int key = trie.getNextKey(ch0 * 26 + ch1);
-                    if (key > 0) {
-                        if (isDouble[id1]) {
-                            int ch2 = doubleIdx[id1];
-                            if (trie.hasRadix(key)) {
-                                int radixPos = trie.getRadixInit(key);
-                                int remainLength = trie.getRadixLength(key) - 2;
-                                if (ch2 == trie.getNextCharIndex(radixPos)) {
-                                    if (remainLength > -1) {
-                                        faceIdx[id1] = -1;
-                                        findWordsDFSDouble(id1, key, radixPos + 1,
-                                                remainLength, trie.hasTrie(key));
-                                        faceIdx[id1] = ch1;
-                                    } else {
-                                        String word = trie.getWordRadix(key);
-                                        if (word != null) {
-                                            words.add(word);
-                                            //System.out.println("\t + word");
-                                        }
-                                        if (trie.hasTrie(key)) {
-                                            faceIdx[id1] = -1;
-                                            findWordsDFSDouble(id1, key, -1, -1, true);
-                                            faceIdx[id1] = ch1;
-                                        }
-                                    }
-                                }
-                            } else {
-                                key = trie.getNextKey(key * 26 + ch2);
-                                if (key > 0) {
-                                    faceIdx[id1] = -1;
-                                    if (trie.hasRadix(key)) {
-                                        findWordsDFSDouble(id1, key, trie.getRadixInit(key),
-                                                trie.getRadixLength(key) - 1, trie.hasTrie(key));
-                                    } else {
-                                        String word = trie.getWordRadix(key);
-                                        if (word != null) {
-                                            words.add(word);
-                                            //System.out.println("\t + word");
-                                        }
-                                        if (trie.hasTrie(key)) {
-                                            findWordsDFSDouble(id1, key, -1, -1, true);
-                                        }
-                                    }
-                                    faceIdx[id1] = ch1;
-                                }
-                            }
-                        } else {
-                            if (ch0 == IDX_Q) {
-                                String word = trie.getWordQ2(key);
-                                if (word != null) {
-                                    words.add(word);
-                                    //System.out.println("\t + word");
-                                }
-                            }
-
-                            faceIdx[id1] = -1;
-                            if (trie.hasRadix(key)) {
-                                findWordsDFSDouble(id1, key, trie.getRadixInit(key),
-                                        trie.getRadixLength(key) - 1, trie.hasTrie(key));
-                            } else {
-                                findWordsDFSDouble(id1, key, -1, -1, true);
-                            }
-                            faceIdx[id1] = ch1;
-                        }
+                if (ch != expect) {
+                    continue;
+                }
+                nextKey = key;
+                nextPos = pos + 1 == end ? -1 : pos + 1;
+            }
+            if (hasDouble && isDouble[id2]) {
+                nextKey = moveCursor(nextKey, nextPos, nextNum, doubleIdx[id2]);
+                if (nextKey == -1) {
+                    continue;
+                }
+                nextPos = cursorPos;
+                nextNum = cursorNum;
+                nextLen++;
+            }
+            if (nextLen > maxLength) {
+                continue;
+            }
+            if (nextPos == -1) {
+                if (nextLen >= minLength) {
+                    if (addWord(trie.getWordIndex(nextKey, nextNum))) {
+                        stopped = true;
+                        return;
                     }
+                    minLength = floorLength;
                 }
-                faceIdx[id0] = ch0;
+                if (!trie.hasTrie(nextKey)) {
+                    continue;
+                }
+            }
+            if (nextLen == maxLength) {
+                continue;
+            }
+
+            // save current frame and move to the neighbor dice
+            stack[top] = id;
+            stack[top + KEY] = key;
+            stack[top + POS] = pos;
+            stack[top + END] = end;
+            stack[top + NBR] = idx;
+            stack[top + NUM] = num;
+            stack[top + LEN] = len;
+            top += FRAME;
+            if (nextPos != -1 && nextKey != key) {
+                end = trie.getRadixInit(nextKey) + trie.getRadixLength(nextKey);
+            }
+            id = id2;
+            key = nextKey;
+            pos = nextPos;
+            num = nextNum;
+            len = nextLen;
+            idx = nbrs[id];
+            last = nbrs[id + 1];
+            expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
+            if (id < MASK_SIZE) {
+                visited |= 1L << id;
+            } else {
+                visitedHigh[id / MASK_SIZE - 1] |= 1L << id;
             }
         }
     }
 
-    // recursive depth first search the Boggle board to find all new words and
-    // add to the words set
-    private void findWordsDFS(int id, int key, int radixPos, int radixLength, boolean hasNextTrie) {
+    // the same search of searchDice on the 16-bit rows of BoggleDictionaryNarrow:
+    // the next key, the letter mask and the word length bound are read from the
+    // arrays of the dictionary, not through the dictionary calls shared with the
+    // other layouts.  The number of words before is always 0 in a trie, it is not
+    // counted.
+    private void searchDiceNarrow(int start) {
+        final BoggleDictionary trie = this.trie;
+        final char[] rows = narrowRows;
+        final int[] masks = narrowMasks;
+        final short[] lengths = narrowLengths;
+        final int[] faceIdx = this.faceIdx;
+        final int[] nbrs = this.nbrs;
+        final boolean[] isDouble = this.isDouble;
+        final int[] doubleIdx = this.doubleIdx;
+        final int[] stack = this.stack;
+        final long[] visitedHigh = this.visitedHigh;
+        final boolean hasDouble = this.hasDouble;
+        final int missing = this.missing;
+        final int maxLength = maxWordLength;
+        int minLength = floorLength;
+
+        int ch0 = faceIdx[start];
+        if (ch0 == -1 || (masks[ch0] & missing) != 0 || lengths[ch0] < minLength) {
+            return;
+        }
+        int len = (ch0 == IDX_Q ? 2 : 1) + (isDouble[start] ? 1 : 0);
+        if (len >= maxLength) {
+            return;
+        }
+        int key = ch0;
+        int pos = -1;
+        if (isDouble[start]) {
+            key = moveCursor(key, pos, 0, doubleIdx[start]);
+            if (key == -1) {
+                return;
+            }
+            pos = cursorPos;
+        }
+        if (pos == -1 && !trie.hasTrie(key)) {
+            return;
+        }
+
+        int top = 0;
+        int id = start;
+        int end = pos == -1 ? 0 : trie.getRadixInit(key) + trie.getRadixLength(key);
+        int idx = nbrs[id];
         int last = nbrs[id + 1];
-        int remainLength = radixLength - 1;
-        if (radixPos < 0) {
-            int refKey = key * 26;
-            for (int idx = nbrs[id]; idx < last; idx++) {
-                int id2 = nbrs[idx];
-                int ch = faceIdx[id2];
-                if (ch == -1 || trie.getNextKey(refKey + ch) == 0) {
+        int expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
+        long visited = 0;
+        if (id < MASK_SIZE) {
+            visited = 1L << id;
+        } else {
+            visitedHigh[id / MASK_SIZE - 1] |= 1L << id;
+        }
+        while (true) {
+            if (idx == last) {
+                // all neighbors visited, release the dice and back to previous frame
+                if (id < MASK_SIZE) {
+                    visited &= ~(1L << id);
+                } else {
+                    visitedHigh[id / MASK_SIZE - 1] &= ~(1L << id);
+                }
+                top -= FRAME;
+                if (top < 0) {
+                    return;
+                }
+                id = stack[top];
+                key = stack[top + KEY];
+                pos = stack[top + POS];
+                end = stack[top + END];
+                idx = stack[top + NBR];
+                len = stack[top + LEN];
+                last = nbrs[id + 1];
+                expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
+                continue;
+            }
+
+            int id2 = nbrs[idx++];
+            if (id2 < MASK_SIZE ? (visited & 1L << id2) != 0
+                    : (visitedHigh[id2 / MASK_SIZE - 1] & 1L << id2) != 0) {
+                continue;
+            }
+            int ch = faceIdx[id2];
+            int nextKey;
+            int nextPos;
+            int nextLen = len + (ch == IDX_Q ? 2 : 1);
+            if (expect == -1) {
+                nextKey = rows[key * 26 + ch];
+                if (nextKey == 0 || (masks[nextKey] & missing) != 0
+                        || lengths[nextKey] < minLength) {
                     continue;
                 }
-                int nextKey = trie.getNextKey(refKey + ch);
-                if (trie.hasRadix(nextKey)) {
-                    faceIdx[id2] = -1;
-                    findWordsDFS(id2, nextKey, trie.getRadixInit(nextKey),
-                            trie.getRadixLength(nextKey) - 1, trie.hasTrie(nextKey));
-                    faceIdx[id2] = ch;
-                } else {
-                    String word = trie.getWord(nextKey);
-                    if (word != null) {
-                        words.add(word);
-                    }
-                    if (trie.hasTrie(nextKey)) {
-                        faceIdx[id2] = -1;
-                        findWordsDFS(id2, nextKey, -1, -1, true);
-                        faceIdx[id2] = ch;
-                    }
+                nextPos = trie.hasRadix(nextKey) ? trie.getRadixInit(nextKey) : -1;
+            } else {
+                if (ch != expect) {
+                    continue;
                 }
+                nextKey = key;
+                nextPos = pos + 1 == end ? -1 : pos + 1;
             }
-        } else {
-            byte nextChar = trie.getNextCharIndex(radixPos);
-            for (int idx = nbrs[id]; idx < last; idx++) {
-                int id2 = nbrs[idx];
-                int ch = faceIdx[id2];
-                if (ch > -1 && ch == nextChar) {
-                    if (remainLength > -1) {
-                        faceIdx[id2] = -1;
-                        findWordsDFS(id2, key, radixPos + 1, remainLength, hasNextTrie);
-                        faceIdx[id2] = ch;
-                    } else {
-                        String word = trie.getWordRadix(key);
-                        if (word != null) {
-                            words.add(word);
-                        }
-                        if (hasNextTrie) {
-                            faceIdx[id2] = -1;
-                            findWordsDFS(id2, key, -1, -1, true);
-                            faceIdx[id2] = ch;
-                        }
+            if (hasDouble && isDouble[id2]) {
+                nextKey = moveCursor(nextKey, nextPos, 0, doubleIdx[id2]);
+                if (nextKey == -1) {
+                    continue;
+                }
+                nextPos = cursorPos;
+                nextLen++;
+            }
+            if (nextLen > maxLength) {
+                continue;
+            }
+            if (nextPos == -1) {
+                if (nextLen >= minLength) {
+                    if (addWord(trie.getWordIndex(nextKey, 0))) {
+                        stopped = true;
+                        return;
                     }
+                    minLength = floorLength;
+                }
+                if (!trie.hasTrie(nextKey)) {
+                    continue;
                 }
             }
+            if (nextLen == maxLength) {
+                continue;
+            }
+
+            // save current frame and move to the neighbor dice
+            stack[top] = id;
+            stack[top + KEY] = key;
+            stack[top + POS] = pos;
+            stack[top + END] = end;
+            stack[top + NBR] = idx;
+            stack[top + LEN] = len;
+            top += FRAME;
+            if (nextPos != -1 && nextKey != key) {
+                end = trie.getRadixInit(nextKey) + trie.getRadixLength(nextKey);
+            }
+            id = id2;
+            key = nextKey;
+            pos = nextPos;
+            len = nextLen;
+            idx = nbrs[id];
+            last = nbrs[id + 1];
+            expect = pos == -1 ? -1 : trie.getNextCharIndex(pos);
+            if (id < MASK_SIZE) {
+                visited |= 1L << id;
+            } else {
+                visitedHigh[id / MASK_SIZE - 1] |= 1L << id;
+            }
         }
     }
 
-    // recursive depth first search the Boggle board to find all new words and
-    // add to the words set with double letters
-    private void findWordsDFSDouble(int id, int key, int radixPos, int radixLength,
-            boolean hasNextTrie) {
-        int last = nbrs[id + 1];
-        int remainLength = radixLength - 1;
-        if (radixPos < 0) {
-            int refKey = key * 26;
-            for (int idx = nbrs[id]; idx < last; idx++) {
-                int id2 = nbrs[idx];
-                int ch = faceIdx[id2];
-                if (ch == -1 || trie.getNextKey(refKey + ch) == 0) {
-                    continue;
-                }
-
-                int nextKey = trie.getNextKey(refKey + ch);
-                if (trie.hasRadix(nextKey)) {
-                    if (isDouble[id2]) {
-                        int radixPos2 = trie.getRadixInit(nextKey);
-                        int remainLength2 = trie.getRadixLength(nextKey) - 2;
-                        if (doubleIdx[id2] == trie.getNextCharIndex(radixPos2)) {
-                            if (remainLength2 > -1) {
-                                faceIdx[id2] = -1;
-                                findWordsDFSDouble(id2, key, radixPos2 + 1, remainLength2,
-                                        trie.hasTrie(nextKey));
-                                faceIdx[id2] = ch;
-                            } else {
-                                String word = trie.getWordRadix(nextKey);
-                                if (word != null) {
-                                    words.add(word);
-                                    //System.out.println("\t" + word);
-                                }
-                                if (trie.hasTrie(nextKey)) {
-                                    faceIdx[id2] = -1;
-                                    findWordsDFSDouble(id2, key, -1, -1, true);
-                                    faceIdx[id2] = ch;
-                                }
-                            }
-                        }
-                    } else {
-                        faceIdx[id2] = -1;
-                        findWordsDFSDouble(id2, nextKey, trie.getRadixInit(nextKey),
-                                trie.getRadixLength(nextKey) - 1, trie.hasTrie(nextKey));
-                        faceIdx[id2] = ch;
-                    }
-                } else {
-                    if (isDouble[id2] && trie.hasTrie(nextKey)) {
-                        nextKey = trie.getNextKey(nextKey * 26 + doubleIdx[id2]);
-                        if (trie.hasRadix(nextKey)) {
-                            faceIdx[id2] = -1;
-                            findWordsDFSDouble(id2, nextKey, trie.getRadixInit(nextKey),
-                                    trie.getRadixLength(nextKey) - 1, trie.hasTrie(nextKey));
-                            faceIdx[id2] = ch;
-                        } else {
-                            String word = trie.getWord(nextKey);
-                            if (word != null) {
-                                words.add(word);
-                                //System.out.println("\t" + word);
-                            }
-                            if (nextKey > 0 && trie.hasTrie(nextKey)) {
-                                faceIdx[id2] = -1;
-                                findWordsDFSDouble(id2, nextKey, -1, -1, true);
-                                faceIdx[id2] = ch;
-                            }
-                        }
-                    } else if (!isDouble[id2]) {
-                        String word = trie.getWord(nextKey);
-                        if (word != null) {
-                            words.add(word);
-                            //System.out.println("\t" + word);
-                        }
-                        if (trie.hasTrie(nextKey)) {
-                            faceIdx[id2] = -1;
-                            findWordsDFSDouble(id2, nextKey, -1, -1, true);
-                            faceIdx[id2] = ch;
-                        }
-                    }
-                }
+    // move the trie cursor of the given key, radix position and number of words
+    // before by the given character index, return the next key and set the next
+    // radix position and number of words before, -1 if the word prefix not exists
+    private int moveCursor(int key, int pos, int num, int ch) {
+        cursorNum = num;
+        if (pos == -1) {
+            if (!trie.hasTrie(key)) {
+                return -1;
+            }
+            int nextKey = trie.getNextKey(key, ch);
+            if (nextKey == 0) {
+                return -1;
             }
+            cursorNum += trie.getNextNumber(key, ch);
+            if (trie.hasRadix(nextKey)) {
+                cursorPos = trie.getRadixInit(nextKey);
+            } else {
+                cursorPos = -1;
+            }
+            return nextKey;
+        }
+
+        if (trie.getNextCharIndex(pos) != ch) {
+            return -1;
+        }
+        pos++;
+        if (pos == trie.getRadixInit(key) + trie.getRadixLength(key)) {
+            cursorPos = -1;
         } else {
-            byte nextChar = trie.getNextCharIndex(radixPos);
-            for (int idx = nbrs[id]; idx < last; idx++) {
-                int id2 = nbrs[idx];
-                int ch = faceIdx[id2];
-                if (ch > -1 && ch == nextChar) {
-                    if (isDouble[id2]) {
-                        if (remainLength > -1) {
-                            if (doubleIdx[id2] == trie.getNextCharIndex(radixPos + 1)) {
-                                if (remainLength - 1 > -1) {
-                                    faceIdx[id2] = -1;
-                                    findWordsDFSDouble(id2, key, radixPos + 2, remainLength - 1,
-                                            hasNextTrie);
-                                    faceIdx[id2] = ch;
-                                } else {
-                                    String word = trie.getWordRadix(key);
-                                    if (word != null) {
-                                        words.add(word);
-                                    }
-                                    if (hasNextTrie) {
-                                        faceIdx[id2] = -1;
-                                        findWordsDFSDouble(id2, key, -1, -1, true);
-                                        faceIdx[id2] = ch;
-                                    }
-                                }
-                            }
-                        } else if (hasNextTrie) {
-                            int nextKey = trie.getNextKey(key * 26 + doubleIdx[id2]);
-                            if (nextKey > 0) {
-                                if (trie.hasRadix(nextKey)) {
-                                    faceIdx[id2] = -1;
-                                    findWordsDFSDouble(id2, nextKey, trie.getRadixInit(nextKey),
-                                            trie.getRadixLength(nextKey) - 1,
-                                            trie.hasTrie(nextKey));
-                                    faceIdx[id2] = ch;
-                                } else {
-                                    String word = trie.getWord(nextKey);
-                                    if (word != null) {
-                                        words.add(word);
-                                    }
-                                    if (trie.hasTrie(nextKey)) {
-                                        faceIdx[id2] = -1;
-                                        findWordsDFSDouble(id2, nextKey, -1, -1, true);
-                                        faceIdx[id2] = ch;
-                                    }
-                                }
-                            }
-                        }
-                    } else {
-                        if (remainLength > -1) {
-                            faceIdx[id2] = -1;
-                            findWordsDFSDouble(id2, key, radixPos + 1, remainLength, hasNextTrie);
-                            faceIdx[id2] = ch;
-                        } else {
-                            String word = trie.getWordRadix(key);
-                            if (word != null) {
-                                words.add(word);
-                                //System.out.println("\t" + word);
-                            }
-                            if (hasNextTrie) {
-                                faceIdx[id2] = -1;
-                                findWordsDFSDouble(id2, key, -1, -1, true);
-                                faceIdx[id2] = ch;
-                            }
-                        }
-                    }
-                }
+            cursorPos = pos;
+        }
+        return key;
+    }
+
+    // add the word of the given word index to the found words if it is not found yet,
+    // and push the new word to the word sink, or offer it to the top words and raise
+    // the floor length; return true if the word sink stop the search
+    private boolean addWord(int wordIdx) {
+        if (wordIdx > 0 && context.add(wordIdx)) {
+            if (topWords != null) {
+                topWords.offer(wordIdx, trie.getWordLength(wordIdx),
+                        trie.getWordIdByIndex(wordIdx));
+                floorLength = topWords.getFloor(minWordLength);
+            } else if (sink != null) {
+                return !sink.accept(trie.getWord(wordIdx), wordIdx);
             }
         }
+        return false;
     }
 
     /**
      *  Returns the number of score of the given word if it is in the dictionary,
      *  zero otherwise.  Minimum 3 characters for 4 x 4 and 5 x 5 Boggle boards.
+     *  The word may be in upper or lower case.
      *      length    scores
      *      0 – 2        0
      *      3 – 4        1
@@ -445,18 +1202,7 @@ public class BoggleSolver {
             throw new IllegalArgumentException("Word is mandatory");
         }
         if (trie.contains(word)) {
-            switch (word.length()) {
-                case 3: case 4:
-                    return 1;
-                case 5:
-                    return 2;
-                case 6:
-                    return 3;
-                case 7:
-                    return 5;
-                case 8: default:
-                    return 11;
-            }
+            return scoreOfLength(word.length(), 3);
         }
         return 0;
     }
@@ -464,6 +1210,7 @@ public class BoggleSolver {
     /**
      *  Returns the number of score of the given word if it is in the dictionary,
      *  zero otherwise.  Minimum 4 characters for 6 x 6 Boggle boards.
+     *  The word may be in upper or lower case.
      *      length    scores
      *      0 – 3        0
      *          4        1
@@ -480,15 +1227,31 @@ public class BoggleSolver {
             throw new IllegalArgumentException("Word is mandatory");
         }
         if (trie.contains(word)) {
-            int len = word.length();
-            if (len < 3) {
-                return 0;
-            } else if (len < 8) {
-                return scoreOf(word);
-            } else {
-                return (len - 8) * 2 + 11;
-            }
+            return scoreOfLength(word.length(), 4);
         }
         return 0;
     }
-}
\ No newline at end of file
+
+    // return the score of a valid word of the given length, scoreOf scoring if
+    // minimum word length is 3 or less, scoreOfBig scoring otherwise
+    static int scoreOfLength(int length, int minWordLength) {
+        if (length < 3) {
+            return 0;
+        }
+        switch (length) {
+            case 3: case 4:
+                return 1;
+            case 5:
+                return 2;
+            case 6:
+                return 3;
+            case 7:
+                return 5;
+            default:
+                if (minWordLength <= 3) {
+                    return 11;
+                }
+                return (length - 8) * 2 + 11;
+        }
+    }
+}
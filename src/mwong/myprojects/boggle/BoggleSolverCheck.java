@@ -0,0 +1,549 @@
+package mwong.myprojects.boggle;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * BoggleSolverCheck is the command line self check of BoggleSolver.  It compares
+ * every search function of the solver on each dictionary layout to a brute force
+ * search of random boards, and throws IllegalStateException if any check fails.
+ * It takes the dictionary file path and the check name, or run all checks.
+ *
+ * <p>Dependencies : BoggleBoard.java, BoggleDictionary.java, BoggleDictionaryBitmap.java,
+ *                   BoggleDictionaryDawg.java, BoggleDictionaryMapped.java,
+ *                   BoggleDictionaryNarrow.java, BoggleOptions.java, BoggleSolver.java,
+ *                   WordSink.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleSolverCheck {
+    private static final String SEPARATOR = System.getProperty("file.separator");
+    private static final int BOARDS = 400;
+    private static final int MAX_SIZE = 9;
+    private static final int GUESSES = 20;
+    private static final int TOP_WORDS = 10;
+    private static final int WARM_UP = 20;
+    // letters of random custom boards in about the frequency of the dices
+    private static final String LETTERS = "EEEAAIIOONNRRTTLLSSUDGBCMPFHVWYKJXQZ";
+    private static final String DOUBLES = "AEHIQT";
+
+    private static final String[] CHECKS = {"words", "order", "bounds", "top", "path",
+        "allocation"};
+    private static final Comparator<String> LONGEST = new Comparator<String>() {
+        @Override
+        public int compare(String word1, String word2) {
+            if (word1.length() != word2.length()) {
+                return word2.length() - word1.length();
+            }
+            return word1.compareTo(word2);
+        }
+    };
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private final BoggleDictionary dictionary;
+    private final BruteForce bruteForce;
+    private final BoggleBoard[] boards;
+    private final List<List<String>> expected;
+    private final String[] guesses;
+    private final ArrayList<String> failures;
+
+    /**
+     * Initializes the BoggleSolverCheck object of the given dictionary, the seeded
+     * random custom boards from 2 x 2 to 9 x 9 with blank and double letters dices,
+     * the random boards of each boggle option, and the words of each board found by
+     * brute force.
+     *
+     * @param dictionary the given BoggleDictionary object
+     */
+    BoggleSolverCheck(BoggleDictionary dictionary) {
+        this.dictionary = dictionary;
+        bruteForce = new BruteForce(dictionary);
+        Random random = new Random(BOARDS);
+        boards = new BoggleBoard[BOARDS];
+        BoggleOptions[] options = BoggleOptions.values();
+        for (int i = 0; i < BOARDS; i++) {
+            if (i % 4 == 3) {
+                boards[i] = new BoggleBoard(options[i / 4 % options.length]);
+            } else {
+                boards[i] = randomCustomBoard(random, 2 + i % (MAX_SIZE - 1));
+            }
+        }
+        expected = new ArrayList<List<String>>();
+        for (BoggleBoard board : boards) {
+            expected.add(bruteForce.search(board));
+        }
+        guesses = new String[BOARDS * GUESSES];
+        for (int i = 0; i < guesses.length; i++) {
+            guesses[i] = dictionary.wordAt(random.nextInt(dictionary.getWordCount()));
+        }
+        failures = new ArrayList<String>();
+    }
+
+    // run the check of the given name on the given solver of the layout of the given
+    // name, print the number of failed boards
+    void check(String check, String layout, BoggleSolver solver, BoggleDictionary trie) {
+        if (check.equals("allocation")) {
+            // the allocation free claim is of the compiled search, the interpreter
+            // may allocate the objects the compiler scalar replaced
+            int[] buffer = new int[dictionary.getWordCount()];
+            for (int round = 0; round < WARM_UP; round++) {
+                for (BoggleBoard board : boards) {
+                    solver.getAllValidWordIds(board, buffer);
+                }
+            }
+        }
+        int failed = 0;
+        for (int idx = 0; idx < boards.length; idx++) {
+            String reason = checkBoard(check, solver, trie, idx);
+            if (reason != null) {
+                failed++;
+                if (failed <= 3) {
+                    failures.add(check + " / " + layout + " / board " + idx + " ("
+                            + boards[idx].getSize() + " x " + boards[idx].getSize() + ") : "
+                            + reason);
+                }
+            }
+        }
+        if (check.equals("order")) {
+            List<Iterable<String>> batch = solver.solveAll(Arrays.asList(boards));
+            for (int idx = 0; idx < boards.length; idx++) {
+                if (!toList(batch.get(idx)).equals(toList(solver.getAllValidWords(boards[idx])))) {
+                    failed++;
+                    failures.add(check + " / " + layout + " / board " + idx
+                            + " : solveAll differs from getAllValidWords");
+                }
+            }
+        }
+        System.out.printf("  %-10s %-12s : %4d boards   %4d failed%n", check, layout,
+                boards.length, failed);
+    }
+
+    // return the reason the check of the given name of the given solver fails on the
+    // board of the given index, null if it passes
+    private String checkBoard(String check, BoggleSolver solver, BoggleDictionary trie,
+            int idx) {
+        BoggleBoard board = boards[idx];
+        List<String> words = expected.get(idx);
+        if (check.equals("words")) {
+            return checkWords(solver, board, words);
+        } else if (check.equals("order")) {
+            return checkOrder(solver, trie, board);
+        } else if (check.equals("bounds")) {
+            return checkBounds(solver, board, words);
+        } else if (check.equals("top")) {
+            return checkTop(solver, board, words);
+        } else if (check.equals("path")) {
+            return checkPath(solver, board, words, Arrays.copyOfRange(guesses,
+                    idx * GUESSES, (idx + 1) * GUESSES));
+        } else if (check.equals("allocation")) {
+            return checkAllocation(solver, board, words.size());
+        }
+        throw new IllegalArgumentException("unknown check " + check);
+    }
+
+    // getAllValidWords find the same set of words as brute force
+    private static String checkWords(BoggleSolver solver, BoggleBoard board,
+            List<String> expected) {
+        List<String> words = toList(solver.getAllValidWords(board));
+        if (words.size() != expected.size()) {
+            return words.size() + " words, expected " + expected.size();
+        }
+        if (!new TreeSet<String>(words).equals(new TreeSet<String>(expected))) {
+            return "different words of the same count";
+        }
+        return null;
+    }
+
+    // word ids, word sink and parallel search in the same order of getAllValidWords
+    private static String checkOrder(BoggleSolver solver, BoggleDictionary trie,
+            BoggleBoard board) {
+        List<String> words = toList(solver.getAllValidWords(board));
+        ArrayList<String> ids = new ArrayList<String>();
+        for (int id : solver.getAllValidWordIds(board)) {
+            ids.add(trie.wordAt(id));
+        }
+        if (!ids.equals(words)) {
+            return "getAllValidWordIds differs";
+        }
+        int[] buffer = new int[words.size()];
+        int count = solver.getAllValidWordIds(board, buffer);
+        ids.clear();
+        for (int i = 0; i < count; i++) {
+            ids.add(trie.wordAt(buffer[i]));
+        }
+        if (!ids.equals(words)) {
+            return "getAllValidWordIds with buffer differs";
+        }
+        final ArrayList<String> pushed = new ArrayList<String>();
+        solver.solve(board, new WordSink() {
+            @Override
+            public boolean accept(String word, int wordIdx) {
+                return pushed.add(word);
+            }
+        });
+        if (!pushed.equals(words)) {
+            return "solve with WordSink differs";
+        }
+        if (!toList(solver.getAllValidWordsParallel(board)).equals(words)) {
+            return "getAllValidWordsParallel differs";
+        }
+        return null;
+    }
+
+    // score count and the words of the word length bounds
+    private static String checkBounds(BoggleSolver solver, BoggleBoard board,
+            List<String> expected) {
+        int count = 0;
+        TreeSet<String> bounded = new TreeSet<String>();
+        for (String word : expected) {
+            if (word.length() >= 3) {
+                count++;
+            }
+            if (word.length() >= 4 && word.length() <= 7) {
+                bounded.add(word);
+            }
+        }
+        if (solver.score(board, 3).getCount() != count) {
+            return "score count " + solver.score(board, 3).getCount() + ", expected " + count;
+        }
+        solver.setWordLength(4, 7);
+        try {
+            List<String> words = toList(solver.getAllValidWords(board));
+            if (words.size() != bounded.size() || !bounded.containsAll(words)) {
+                return "setWordLength(4, 7) " + words.size() + " words, expected "
+                        + bounded.size();
+            }
+        } finally {
+            solver.setWordLength(0, Integer.MAX_VALUE);
+        }
+        return null;
+    }
+
+    // top words of 1, 10 and all words by length then word
+    private static String checkTop(BoggleSolver solver, BoggleBoard board,
+            List<String> expected) {
+        List<String> longest = new ArrayList<String>(expected);
+        Collections.sort(longest, LONGEST);
+        int[] counts = {1, TOP_WORDS, Integer.MAX_VALUE};
+        for (int count : counts) {
+            List<String> top = solver.getTopWords(board, count);
+            if (!top.equals(longest.subList(0, Math.min(count, longest.size())))) {
+                return "getTopWords(" + count + ") differs";
+            }
+        }
+        return null;
+    }
+
+    // path of each word found, and of random dictionary words
+    private String checkPath(BoggleSolver solver, BoggleBoard board, List<String> expected,
+            String[] boardGuesses) {
+        bruteForce.load(board);
+        for (String word : expected) {
+            if (!bruteForce.isPath(solver.findPath(board, word), word)) {
+                return "no valid path of " + word;
+            }
+        }
+        for (String guess : boardGuesses) {
+            int[] path = solver.findPath(board, guess);
+            if (bruteForce.canTrace(guess) ? !bruteForce.isPath(path, guess) : path != null) {
+                return "wrong path of guess " + guess;
+            }
+        }
+        return null;
+    }
+
+    // the buffer version of getAllValidWordIds allocate nothing after the first search
+    // of the board, by the allocated bytes of current thread (the counter of the gc
+    // profiler of JMH); pass if the counter is not supported
+    private static String checkAllocation(BoggleSolver solver, BoggleBoard board,
+            int count) {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) THREADS;
+        long threadId = Thread.currentThread().getId();
+        int[] buffer = new int[count];
+        solver.getAllValidWordIds(board, buffer);
+        // the least of a few searches, a search may be charged for the deoptimization
+        // of the compiler once
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            // the bytes allocated by the counter itself
+            long start = counter.getThreadAllocatedBytes(threadId);
+            long base = counter.getThreadAllocatedBytes(threadId) - start;
+            start = counter.getThreadAllocatedBytes(threadId);
+            solver.getAllValidWordIds(board, buffer);
+            allocated = Math.min(allocated,
+                    counter.getThreadAllocatedBytes(threadId) - start - base);
+        }
+        if (allocated > 0) {
+            return "getAllValidWordIds with buffer allocated " + allocated + " bytes";
+        }
+        return null;
+    }
+
+    // return the list of failures, up to 3 boards of each check and layout
+    List<String> getFailures() {
+        return failures;
+    }
+
+    // return a random custom board of the given size, about 3% blank dices and 9%
+    // double letters dices
+    private static BoggleBoard randomCustomBoard(Random random, int size) {
+        byte[] codes = new byte[size * size];
+        for (int i = 0; i < codes.length; i++) {
+            int face = random.nextInt(100);
+            if (face < 3) {
+                codes[i] = 0;
+            } else if (face < 12) {
+                codes[i] = (byte) (101 + DOUBLES.charAt(
+                        random.nextInt(DOUBLES.length())) - 'A');
+            } else {
+                codes[i] = (byte) (1 + LETTERS.charAt(
+                        random.nextInt(LETTERS.length())) - 'A');
+            }
+        }
+        return customBoard(size, codes);
+    }
+
+    // return the list of the given words
+    private static List<String> toList(Iterable<String> words) {
+        ArrayList<String> list = new ArrayList<String>();
+        for (String word : words) {
+            list.add(word);
+        }
+        return list;
+    }
+
+    // return the custom board of the given size and gui codes, the custom board
+    // constructor prints the gui codes
+    private static BoggleBoard customBoard(int size, byte[] codes) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int value) {
+            }
+        }));
+        try {
+            return new BoggleBoard(size, codes);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    // brute force search of a board, recursive depth first search of the String of
+    // each dice against the sets of words and prefixes of the dictionary
+    private static class BruteForce {
+        private final HashSet<String> words;
+        private final HashSet<String> prefixes;
+        private String[] cells;
+        private boolean[] used;
+        private int size;
+
+        BruteForce(BoggleDictionary dictionary) {
+            words = new HashSet<String>();
+            prefixes = new HashSet<String>();
+            for (int id = 0; id < dictionary.getWordCount(); id++) {
+                String word = dictionary.wordAt(id);
+                words.add(word);
+                for (int len = 1; len < word.length(); len++) {
+                    prefixes.add(word.substring(0, len));
+                }
+            }
+        }
+
+        // set the String of each dice of the given board, null if blank
+        void load(BoggleBoard board) {
+            size = board.getSize();
+            cells = new String[size * size];
+            used = new boolean[size * size];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    char letter = board.getFirstLetter(row, col);
+                    if (letter == BoggleBoard.getBlank()) {
+                        continue;
+                    }
+                    String cell = String.valueOf(letter);
+                    if (letter == 'Q') {
+                        cell = "QU";
+                    } else if (board.isDoubleLetter(row, col)) {
+                        cell += board.get2ndUpper(letter);
+                    }
+                    cells[row * size + col] = cell;
+                }
+            }
+        }
+
+        // return the list of all words on the given board
+        List<String> search(BoggleBoard board) {
+            load(board);
+            TreeSet<String> found = new TreeSet<String>();
+            for (int id = 0; id < cells.length; id++) {
+                search(id, "", found);
+            }
+            return new ArrayList<String>(found);
+        }
+
+        private void search(int id, String prefix, TreeSet<String> found) {
+            if (cells[id] == null || used[id]) {
+                return;
+            }
+            String word = prefix + cells[id];
+            if (words.contains(word)) {
+                found.add(word);
+            }
+            if (!prefixes.contains(word)) {
+                return;
+            }
+            used[id] = true;
+            for (int next : neighbors(id)) {
+                search(next, word, found);
+            }
+            used[id] = false;
+        }
+
+        // return the boolean represent the given word can be traced on the board
+        boolean canTrace(String word) {
+            for (int id = 0; id < cells.length; id++) {
+                if (trace(id, word, 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean trace(int id, String word, int pos) {
+            if (cells[id] == null || used[id] || !word.startsWith(cells[id], pos)) {
+                return false;
+            }
+            if (pos + cells[id].length() == word.length()) {
+                return true;
+            }
+            used[id] = true;
+            boolean found = false;
+            for (int next : neighbors(id)) {
+                if (trace(next, word, pos + cells[id].length())) {
+                    found = true;
+                    break;
+                }
+            }
+            used[id] = false;
+            return found;
+        }
+
+        // return the boolean represent the given path is adjacent dices, each dice
+        // used once, and spells the given word
+        boolean isPath(int[] path, String word) {
+            if (path == null || path.length == 0) {
+                return false;
+            }
+            StringBuilder spelled = new StringBuilder();
+            HashSet<Integer> seen = new HashSet<Integer>();
+            for (int i = 0; i < path.length; i++) {
+                if (path[i] < 0 || path[i] >= cells.length || cells[path[i]] == null
+                        || !seen.add(path[i])) {
+                    return false;
+                }
+                if (i > 0 && (Math.abs(path[i] / size - path[i - 1] / size) > 1
+                        || Math.abs(path[i] % size - path[i - 1] % size) > 1)) {
+                    return false;
+                }
+                spelled.append(cells[path[i]]);
+            }
+            return spelled.toString().equals(word);
+        }
+
+        // return the neighbors of the given dice
+        private List<Integer> neighbors(int id) {
+            ArrayList<Integer> list = new ArrayList<Integer>();
+            int row = id / size;
+            int col = id % size;
+            for (int nextRow = row - 1; nextRow <= row + 1; nextRow++) {
+                for (int nextCol = col - 1; nextCol <= col + 1; nextCol++) {
+                    if ((nextRow != row || nextCol != col) && nextRow >= 0 && nextCol >= 0
+                            && nextRow < size && nextCol < size) {
+                        list.add(nextRow * size + nextCol);
+                    }
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Main application to run the self check.  Each check compares a group of search
+     * functions of BoggleSolver on each dictionary layout to the brute force search:
+     * words (getAllValidWords), order (word ids, buffer, word sink, parallel and
+     * solveAll), bounds (score and setWordLength), top (getTopWords), path
+     * (findPath), and allocation of the buffer version of getAllValidWordIds.
+     * Throws IllegalStateException if any check failed.
+     *
+     * @param args optional dictionary file path, and check name
+     */
+    public static void main(String[] args) {
+        String filepath = "dictionary" + SEPARATOR + DictionaryOptions.OSPD.getFilename();
+        if (args.length > 0) {
+            filepath = args[0];
+        }
+        String name = "all";
+        if (args.length > 1) {
+            name = args[1];
+        }
+
+        System.out.println("Check search of " + BOARDS + " random boards : " + filepath);
+        BoggleDictionary dictionary = new BoggleDictionary(filepath);
+        String mappedpath = filepath + ".check.mapped";
+        ArrayList<BoggleDictionary> layouts = new ArrayList<BoggleDictionary>();
+        ArrayList<String> names = new ArrayList<String>();
+        layouts.add(dictionary);
+        names.add("26-way rows");
+        if (BoggleDictionaryNarrow.fits(dictionary)) {
+            layouts.add(new BoggleDictionaryNarrow(dictionary));
+            names.add("16-bit rows");
+        }
+        layouts.add(new BoggleDictionaryBitmap(dictionary));
+        names.add("bitmap");
+        layouts.add(BoggleDictionary.reorder(dictionary, BoggleOptions.SUPERBIG));
+        names.add("locality");
+        if (dictionary.writeMapped(mappedpath)) {
+            BoggleDictionaryMapped mapped = BoggleDictionaryMapped.map(mappedpath);
+            if (mapped != null) {
+                layouts.add(mapped);
+                names.add("mapped");
+            }
+        }
+        layouts.add(new BoggleDictionaryDawg(filepath));
+        names.add("DAWG");
+
+        BoggleSolverCheck checker = new BoggleSolverCheck(dictionary);
+        for (String check : CHECKS) {
+            if (name.equals("all") || name.equals(check)) {
+                for (int i = 0; i < layouts.size(); i++) {
+                    checker.check(check, names.get(i), new BoggleSolver(layouts.get(i)),
+                            layouts.get(i));
+                }
+            }
+        }
+        new File(mappedpath).delete();
+        if (!checker.getFailures().isEmpty()) {
+            for (String failure : checker.getFailures()) {
+                System.out.println("  FAILED " + failure);
+            }
+            throw new IllegalStateException("self check failed : "
+                    + checker.getFailures().size() + " failures");
+        }
+    }
+}
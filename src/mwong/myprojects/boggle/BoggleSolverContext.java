@@ -0,0 +1,101 @@
+package mwong.myprojects.boggle;
+
+import java.util.Arrays;
+
+/**
+ * BoggleSolverContext is the per search state of BoggleSolver.  It marks the words
+ * already found in current search and keep the word indexes in found order, so the
+ * BoggleDictionary stay read only and one dictionary can be shared by multiple solvers
+ * in different threads.
+ *
+ * <p>Dependencies : BoggleDictionary.java
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleSolverContext {
+    private int[] visited;
+    private int marker;
+    private int[] found;
+    private int size;
+
+    /**
+     * Initializes the BoggleSolverContext with empty visited marker.
+     */
+    BoggleSolverContext() {
+        visited = new int[0];
+        marker = 0;
+        found = new int[256];
+        size = 0;
+    }
+
+    /**
+     * Start a new search of the given dictionary, increment the marker, clear
+     * the found words and expand the visited marker if needed.
+     *
+     * @param dictionary the given BoggleDictionary object
+     */
+    void reset(BoggleDictionary dictionary) {
+        int capacity = dictionary.getWordIndexSize();
+        if (visited.length < capacity) {
+            visited = new int[capacity];
+            marker = 0;
+        }
+        marker++;
+        // clear the visited marker when the marker is overflow
+        if (marker == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            marker = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Add the word index to the found words if it is not visited in current search,
+     * returns the boolean value represents it is a new word.
+     *
+     * @param wordIdx the number of word index
+     * @return boolean value represents it is a new word in current search
+     */
+    boolean add(int wordIdx) {
+        if (visited[wordIdx] == marker) {
+            return false;
+        }
+        visited[wordIdx] = marker;
+        if (size == found.length) {
+            found = Arrays.copyOf(found, size * 2);
+        }
+        found[size++] = wordIdx;
+        return true;
+    }
+
+    /**
+     * Returns the number of words found in current search.
+     *
+     * @return number of words found in current search
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the word index of the ith found word in current search.
+     *
+     * @param idx the number of the ith found word
+     * @return word index of the ith found word in current search
+     */
+    int get(int idx) {
+        return found[idx];
+    }
+
+    /**
+     * Returns the integer array of word indexes found in current search.
+     *
+     * @return integer array of word indexes found in current search
+     */
+    int[] toArray() {
+        return Arrays.copyOf(found, size);
+    }
+}
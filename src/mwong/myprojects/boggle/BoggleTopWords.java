@@ -0,0 +1,128 @@
+package mwong.myprojects.boggle;
+
+/**
+ * BoggleTopWords is the bounded min heap of the best words of a search by
+ * BoggleSolver.  The longer word is better, the word of smaller word id (lexicographic
+ * order) is better for the same length.  The worst word of the heap is at the top,
+ * once the heap is full, a new word replaces it only if it is better, and the length
+ * of the worst word is the shortest length can still enter the heap.
+ *
+ * <p>Dependencies : none
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleTopWords {
+    private final int[] wordIdx;
+    private final int[] length;
+    private final int[] wordId;
+    private int size;
+
+    /**
+     * Initializes the empty BoggleTopWords of the given number of words.
+     *
+     * @param capacity the number of words to keep
+     */
+    BoggleTopWords(int capacity) {
+        wordIdx = new int[capacity];
+        length = new int[capacity];
+        wordId = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Add the word of the given word index, length and word id if the heap is not
+     * full or it is better than the worst word of the heap.
+     *
+     * @param idx the number of word index
+     * @param len the number of word length
+     * @param id the number of word id
+     */
+    void offer(int idx, int len, int id) {
+        if (size < wordIdx.length) {
+            int pos = size++;
+            // sift up, the worse word to the top
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!isWorse(len, id, length[parent], wordId[parent])) {
+                    break;
+                }
+                set(pos, wordIdx[parent], length[parent], wordId[parent]);
+                pos = parent;
+            }
+            set(pos, idx, len, id);
+            return;
+        }
+        if (size == 0 || !isWorse(length[0], wordId[0], len, id)) {
+            return;
+        }
+        siftDown(idx, len, id);
+    }
+
+    /**
+     * Returns the number of shortest length of a new word can enter the heap,
+     * the given minimum length if the heap is not full.
+     *
+     * @param minLength the number of minimum word length
+     * @return number of shortest length of a new word can enter the heap
+     */
+    int getFloor(int minLength) {
+        if (size < wordIdx.length || size == 0) {
+            return minLength;
+        }
+        return Math.max(minLength, length[0]);
+    }
+
+    /**
+     * Returns the integer array of word indexes of the heap, the best word first.
+     * The heap is empty afterward.
+     *
+     * @return integer array of word indexes of the heap, the best word first
+     */
+    int[] toArray() {
+        int[] words = new int[size];
+        while (size > 0) {
+            words[size - 1] = wordIdx[0];
+            size--;
+            if (size > 0) {
+                siftDown(wordIdx[size], length[size], wordId[size]);
+            }
+        }
+        return words;
+    }
+
+    // replace the top of the heap with the given word and sift it down
+    private void siftDown(int idx, int len, int id) {
+        int pos = 0;
+        while (true) {
+            int child = pos * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isWorse(length[child + 1], wordId[child + 1],
+                    length[child], wordId[child])) {
+                child++;
+            }
+            if (!isWorse(length[child], wordId[child], len, id)) {
+                break;
+            }
+            set(pos, wordIdx[child], length[child], wordId[child]);
+            pos = child;
+        }
+        set(pos, idx, len, id);
+    }
+
+    // return true if the word of the first length and word id is worse than the second
+    private static boolean isWorse(int len1, int id1, int len2, int id2) {
+        return len1 < len2 || (len1 == len2 && id1 > id2);
+    }
+
+    // store the word at the given position of the heap
+    private void set(int pos, int idx, int len, int id) {
+        wordIdx[pos] = idx;
+        length[pos] = len;
+        wordId[pos] = id;
+    }
+}
@@ -0,0 +1,422 @@
+package mwong.myprojects.boggle;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * BoggleWordList is the list of words of a dictionary file stored in a byte arena.
+ * Each line is trimmed, converted to upper case and validated through a lookup
+ * table while it is copied into the arena, no String is created per line.  The
+ * file is memory mapped and scanned directly, or streamed through a gzip decoder
+ * if it is compressed.  The word offsets are sorted by MSD radix sort, in parallel
+ * with a ForkJoinPool, and the duplicate words are removed.
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public class BoggleWordList {
+    private static final int BLOCK = 1 << 16;
+    // the file is mapped in windows of this size
+    private static final long WINDOW = 1L << 30;
+    private static final int GZIP_MAGIC1 = 0x1f;
+    private static final int GZIP_MAGIC2 = 0x8b;
+    // estimate ratio of uncompressed bytes to gzip file size
+    private static final int GZIP_RATIO = 3;
+    // ranges less than the cutoff are sorted by insertion sort
+    private static final int CUTOFF = 16;
+    // ranges more than the threshold are sorted in a new fork join task
+    private static final int THRESHOLD = 1 << 12;
+    private static final int MIN_LENGTH = 3;
+    // lookup table of upper case letter of each byte, 0 if not a letter
+    private static final byte[] UPPER = new byte[256];
+
+    static {
+        for (int ch = 'A'; ch <= 'Z'; ch++) {
+            UPPER[ch] = (byte) ch;
+            UPPER[ch - 'A' + 'a'] = (byte) ch;
+        }
+    }
+
+    private byte[] bytes;
+    private int byteSize;
+    private int[] offset;
+    private int[] order;
+    private int size;
+    private boolean sorted;
+
+    // parser state of current line
+    private int lineStart;
+    private boolean lineValid;
+    private boolean lineSpace;
+
+    /**
+     * Initializes an empty BoggleWordList with the given estimate number of bytes.
+     *
+     * @param estBytes the integer of given estimate number of bytes
+     */
+    public BoggleWordList(int estBytes) {
+        bytes = new byte[Math.max(estBytes, BLOCK)];
+        offset = new int[Math.max(estBytes / 8, 64)];
+        lineValid = true;
+    }
+
+    /**
+     * Returns the BoggleWordList of the given dictionary file, the words are in
+     * file order.  The file is memory mapped and the line boundaries are scanned on
+     * the mapped bytes, a gzip file (end with .gz or start with the gzip magic
+     * number) is decompressed as a stream.
+     *
+     * @param filepath the given String of file path
+     * @return BoggleWordList of the given dictionary file
+     * @throws IOException if the file is unable to read
+     */
+    public static BoggleWordList read(String filepath) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filepath, "r");
+                FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (filepath.endsWith(".gz") || isGzip(file)) {
+                BoggleWordList list = new BoggleWordList(
+                        (int) Math.min(size * GZIP_RATIO, Integer.MAX_VALUE / 2));
+                try (InputStream in = new GZIPInputStream(new FileInputStream(filepath),
+                        BLOCK)) {
+                    list.parse(in);
+                }
+                return list;
+            }
+
+            // the mapping stay valid after the channel is closed, it is released
+            // by the garbage collector
+            BoggleWordList list = new BoggleWordList(
+                    (int) Math.min(size, Integer.MAX_VALUE / 2));
+            for (long pos = 0; pos < size; pos += WINDOW) {
+                list.parse(channel.map(FileChannel.MapMode.READ_ONLY, pos,
+                        Math.min(WINDOW, size - pos)));
+            }
+            list.endLine();
+            return list;
+        }
+    }
+
+    // return the boolean represent the file start with the gzip magic number
+    private static boolean isGzip(RandomAccessFile file) throws IOException {
+        if (file.length() < 2) {
+            return false;
+        }
+        file.seek(0);
+        boolean gzip = file.read() == GZIP_MAGIC1 && file.read() == GZIP_MAGIC2;
+        file.seek(0);
+        return gzip;
+    }
+
+    /**
+     * Returns the BoggleWordList of the given words, the words are in given order.
+     *
+     * @param words the given String array of words
+     * @return BoggleWordList of the given words
+     */
+    public static BoggleWordList of(String[] words) {
+        BoggleWordList list = new BoggleWordList(words.length * 8);
+        byte[] line = new byte[BLOCK];
+        for (String word : words) {
+            if (word.length() >= line.length) {
+                line = new byte[word.length() + 1];
+            }
+            for (int idx = 0; idx < word.length(); idx++) {
+                char ch = word.charAt(idx);
+                line[idx] = ch < 256 ? (byte) ch : 0;
+            }
+            line[word.length()] = '\n';
+            list.parse(line, 0, word.length() + 1);
+        }
+        return list;
+    }
+
+    // parse all bytes of the given input stream
+    private void parse(InputStream in) throws IOException {
+        byte[] block = new byte[BLOCK];
+        int count = in.read(block);
+        while (count != -1) {
+            parse(block, 0, count);
+            count = in.read(block);
+        }
+        endLine();
+    }
+
+    // parse the given range of bytes, copy the upper case letters of each line
+    // to the arena, a line is a word if it has 3 or more letters, the leading
+    // and trailing white space are trimmed
+    void parse(byte[] block, int from, int to) {
+        ensureCapacity(to - from);
+        for (int idx = from; idx < to; idx++) {
+            parse(block[idx]);
+        }
+    }
+
+    // parse the remaining bytes of the given buffer in place
+    private void parse(ByteBuffer buffer) {
+        ensureCapacity(buffer.remaining());
+        byte[] block = new byte[BLOCK];
+        while (buffer.hasRemaining()) {
+            int count = Math.min(BLOCK, buffer.remaining());
+            buffer.get(block, 0, count);
+            for (int idx = 0; idx < count; idx++) {
+                parse(block[idx]);
+            }
+        }
+    }
+
+    // parse the next byte of current line
+    private void parse(byte ch) {
+        if (ch == '\n') {
+            endLine();
+        } else if (lineValid) {
+            if ((ch & 0xFF) <= ' ') {
+                lineSpace = byteSize > lineStart;
+            } else if (lineSpace || UPPER[ch & 0xFF] == 0) {
+                lineValid = false;
+            } else {
+                bytes[byteSize++] = UPPER[ch & 0xFF];
+            }
+        }
+    }
+
+    // ensure the arena has the space of the given number of bytes more
+    private void ensureCapacity(int count) {
+        long capacity = (long) byteSize + count;
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(bytes.length * 3L / 2, capacity)));
+        }
+    }
+
+    // end of current line, keep the word or roll back the arena
+    void endLine() {
+        if (lineValid && byteSize - lineStart >= MIN_LENGTH) {
+            if (size + 2 > offset.length) {
+                offset = Arrays.copyOf(offset, offset.length * 3 / 2);
+            }
+            offset[size++] = lineStart;
+            offset[size] = byteSize;
+            lineStart = byteSize;
+        } else {
+            byteSize = lineStart;
+        }
+        lineValid = true;
+        lineSpace = false;
+    }
+
+    /**
+     * Sorts the words in lexicographic order and removes the duplicate words.  It
+     * skips the radix sort if the words are already in order.
+     *
+     * @param pool the given ForkJoinPool, sort in current thread if null
+     */
+    public void sort(ForkJoinPool pool) {
+        if (sorted) {
+            return;
+        }
+        order = new int[size];
+        for (int idx = 0; idx < size; idx++) {
+            order[idx] = idx;
+        }
+        boolean inOrder = true;
+        for (int idx = 1; idx < size && inOrder; idx++) {
+            inOrder = compare(order[idx - 1], order[idx], 0) <= 0;
+        }
+        if (!inOrder) {
+            int[] aux = new int[size];
+            if (pool == null) {
+                sort(0, size, 0, aux);
+            } else {
+                pool.invoke(new RadixSort(0, size, 0, aux));
+            }
+        }
+
+        // remove the duplicate words
+        int count = size == 0 ? 0 : 1;
+        for (int idx = 1; idx < size; idx++) {
+            if (compare(order[count - 1], order[idx], 0) != 0) {
+                order[count++] = order[idx];
+            }
+        }
+        if (count < size) {
+            order = Arrays.copyOf(order, count);
+        }
+        size = count;
+        sorted = true;
+    }
+
+    // return the character of the word at the given depth, 0 for end of word
+    private int charAt(int word, int depth) {
+        int pos = offset[word] + depth;
+        return pos < offset[word + 1] ? bytes[pos] - 'A' + 1 : 0;
+    }
+
+    // compare the two words from the given depth
+    private int compare(int word1, int word2, int depth) {
+        int pos1 = offset[word1] + depth;
+        int pos2 = offset[word2] + depth;
+        int end1 = offset[word1 + 1];
+        int end2 = offset[word2 + 1];
+        while (pos1 < end1 && pos2 < end2) {
+            if (bytes[pos1] != bytes[pos2]) {
+                return bytes[pos1] - bytes[pos2];
+            }
+            pos1++;
+            pos2++;
+        }
+        return (end1 - pos1) - (end2 - pos2);
+    }
+
+    // MSD radix sort of the given range of order by the character at the given
+    // depth, the words of the range have the same prefix before the depth
+    private void sort(int lo, int hi, int depth, int[] aux) {
+        if (hi - lo < CUTOFF) {
+            insertionSort(lo, hi, depth);
+            return;
+        }
+        int[] start = distribute(lo, hi, depth, aux);
+        for (int ch = 1; ch < 27; ch++) {
+            if (start[ch + 1] - start[ch] > 1) {
+                sort(start[ch], start[ch + 1], depth + 1, aux);
+            }
+        }
+    }
+
+    // distribute the given range of order to the buckets of the character at the
+    // given depth, return the starting position of each bucket
+    private int[] distribute(int lo, int hi, int depth, int[] aux) {
+        int[] start = new int[28];
+        for (int idx = lo; idx < hi; idx++) {
+            start[charAt(order[idx], depth) + 1]++;
+        }
+        start[0] = lo;
+        for (int ch = 1; ch < 28; ch++) {
+            start[ch] += start[ch - 1];
+        }
+        int[] next = Arrays.copyOf(start, 27);
+        for (int idx = lo; idx < hi; idx++) {
+            aux[next[charAt(order[idx], depth)]++] = order[idx];
+        }
+        System.arraycopy(aux, lo, order, lo, hi - lo);
+        return start;
+    }
+
+    // insertion sort of the given range of order from the given depth
+    private void insertionSort(int lo, int hi, int depth) {
+        for (int i = lo + 1; i < hi; i++) {
+            int word = order[i];
+            int j = i;
+            while (j > lo && compare(order[j - 1], word, depth) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = word;
+        }
+    }
+
+    // fork join task of MSD radix sort, the buckets are sorted in parallel, each
+    // bucket use it's own range of order and aux
+    private class RadixSort extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo;
+        private final int hi;
+        private final int depth;
+        private final int[] aux;
+
+        RadixSort(int lo, int hi, int depth, int[] aux) {
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+            this.aux = aux;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < THRESHOLD) {
+                sort(lo, hi, depth, aux);
+                return;
+            }
+            int[] start = distribute(lo, hi, depth, aux);
+            RadixSort[] tasks = new RadixSort[26];
+            int count = 0;
+            for (int ch = 1; ch < 27; ch++) {
+                if (start[ch + 1] - start[ch] > 1) {
+                    tasks[count++] = new RadixSort(start[ch], start[ch + 1], depth + 1, aux);
+                }
+            }
+            invokeAll(Arrays.asList(tasks).subList(0, count));
+        }
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the boolean represent the words are sorted and no duplicate.
+     *
+     * @return boolean represent the words are sorted and no duplicate
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Returns the String of the word at the given position.
+     *
+     * @param idx the number of position
+     * @return String of the word at the given position
+     */
+    public String get(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IllegalArgumentException("Invalid position : " + idx);
+        }
+        return new String(bytes, getStart(idx), getLength(idx), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the String array of all words.
+     *
+     * @return String array of all words
+     */
+    public String[] toArray() {
+        String[] words = new String[size];
+        for (int idx = 0; idx < size; idx++) {
+            words[idx] = get(idx);
+        }
+        return words;
+    }
+
+    // return the byte array of the arena
+    final byte[] getBytes() {
+        return bytes;
+    }
+
+    // return the starting position in the arena of the word at the given position
+    final int getStart(int idx) {
+        return offset[order == null ? idx : order[idx]];
+    }
+
+    // return the length of the word at the given position
+    final int getLength(int idx) {
+        int word = order == null ? idx : order[idx];
+        return offset[word + 1] - offset[word];
+    }
+}
@@ -2,11 +2,20 @@ package mwong.myprojects.boggle;
 
 import py4j.GatewayServer;
 
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * GatewayServerBoggle for pyqt5 GUI front end to connect to boggle solvers.
+ * GatewayServerBoggle for pyqt5 GUI front end to connect to boggle solvers.  The
+ * boards of a boggle option are searched with the dictionary pruned to the dice set
+ * of the option if it removes at least 5% of the words.  The pruned dictionaries
+ * are built in background each time the dictionary is changed, the boards are
+ * searched with the full dictionary until they are ready.
  *
  * @author Meisze Wong
  *         www.linkedin.com/pub/macy-wong/46/550/37b/
@@ -14,6 +23,8 @@ import java.util.Set;
  */
 
 public class GatewayServerBoggle {
+    // the minimum share of the words removed by the dice set to cache the pruned solver
+    private static final double MIN_PRUNED = 0.05;
     BoggleSolver solver;
     BoggleBoard board;
     BoggleDictionary dictionary;
@@ -22,13 +33,40 @@ public class GatewayServerBoggle {
     int maxScores;
     String dictionaryFilepath;
     String inUseDictionary;
+    boolean mapped;
+    BoggleOptions boardOption;
+    // the solvers of the pruned dictionaries of current dictionary, guarded by itself
+    Map<BoggleOptions, BoggleSolver> optionSolvers;
+    BoggleDictionary prunedSource;
+    ExecutorService pruneService;
 
     /**
      * Initialize GatewayServerBoggle with default dictionary.
      */
     public GatewayServerBoggle() {
-        dictionary = new BoggleDictionary();
+        this(false);
+    }
+
+    /**
+     * Initialize GatewayServerBoggle with default dictionary, the dictionary options
+     * are memory mapped if mapped is true.
+     *
+     * @param mapped the boolean of the dictionary options are memory mapped
+     */
+    public GatewayServerBoggle(boolean mapped) {
+        this.mapped = mapped;
+        dictionary = loadDictionary(DictionaryOptions.OSPD);
         solver = new BoggleSolver(dictionary);
+        optionSolvers = new EnumMap<BoggleOptions, BoggleSolver>(BoggleOptions.class);
+        pruneService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "boggle-prune");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        pruneDictionary();
         wordsList = "";
         words = new HashSet<String>();
         maxScores = 0;
@@ -41,13 +79,14 @@ public class GatewayServerBoggle {
         if (inUseDictionary == DictionaryOptions.OSPD.getAcronym()) {
             return;
         }
-        dictionary = new BoggleDictionary(DictionaryOptions.OSPD);
+        dictionary = loadDictionary(DictionaryOptions.OSPD);
         inUseDictionary = DictionaryOptions.OSPD.getAcronym();
         if (dictionary.isEmpty()) {
-            dictionary = new BoggleDictionary();
+            dictionary = BoggleDictionary.narrow(new BoggleDictionary());
             inUseDictionary = "default";
         }
         solver.setDictionary(dictionary);
+        pruneDictionary();
         if (board != null) {
             int size = board.getSize();
             if (size < 6) {
@@ -65,13 +104,14 @@ public class GatewayServerBoggle {
         if (inUseDictionary == DictionaryOptions.EOWL.getAcronym()) {
             return;
         }
-        dictionary = new BoggleDictionary(DictionaryOptions.EOWL);
+        dictionary = loadDictionary(DictionaryOptions.EOWL);
         inUseDictionary = DictionaryOptions.EOWL.getAcronym();
         if (dictionary.isEmpty()) {
-            dictionary = new BoggleDictionary();
+            dictionary = BoggleDictionary.narrow(new BoggleDictionary());
             inUseDictionary = "default";
         }
         solver.setDictionary(dictionary);
+        pruneDictionary();
         if (board != null) {
             int size = board.getSize();
             if (size < 6) {
@@ -89,13 +129,14 @@ public class GatewayServerBoggle {
         if (inUseDictionary == DictionaryOptions.SOWPODS.getAcronym()) {
             return;
         }
-        dictionary = new BoggleDictionary(DictionaryOptions.SOWPODS);
+        dictionary = loadDictionary(DictionaryOptions.SOWPODS);
         inUseDictionary = DictionaryOptions.SOWPODS.getAcronym();
         if (dictionary.isEmpty()) {
-            dictionary = new BoggleDictionary();
+            dictionary = BoggleDictionary.narrow(new BoggleDictionary());
             inUseDictionary = "default";
         }
         solver.setDictionary(dictionary);
+        pruneDictionary();
         if (board != null) {
             int size = board.getSize();
             if (size < 6) {
@@ -110,13 +151,14 @@ public class GatewayServerBoggle {
      * Change the BoggleDictionary to the given dictionary file.
      */
     public void setDictionaryCustom(String filename) {
-        dictionary = new BoggleDictionary(filename);
+        dictionary = BoggleDictionary.narrow(new BoggleDictionary(filename));
         inUseDictionary = "custom";
         if (dictionary.isEmpty()) {
-            dictionary = new BoggleDictionary();
+            dictionary = BoggleDictionary.narrow(new BoggleDictionary());
             inUseDictionary = "default";
         }
         solver.setDictionary(dictionary);
+        pruneDictionary();
         if (board != null) {
             int size = board.getSize();
             if (size < 6) {
@@ -135,6 +177,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getClassicBoard() {
         board = new BoggleBoard(BoggleOptions.CLASSIC);
+        boardOption = BoggleOptions.CLASSIC;
         setAllWords(BoggleOptions.CLASSIC.getMinWordLength());
         return board;
     }
@@ -147,6 +190,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getNew1992Board() {
         board = new BoggleBoard(BoggleOptions.NEW1992);
+        boardOption = BoggleOptions.NEW1992;
         setAllWords(BoggleOptions.NEW1992.getMinWordLength());
         return board;
     }
@@ -159,6 +203,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getDeluxeBoard() {
         board = new BoggleBoard(BoggleOptions.DELUXE);
+        boardOption = BoggleOptions.DELUXE;
         setAllWords(BoggleOptions.DELUXE.getMinWordLength());
         return board;
     }
@@ -171,6 +216,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getBigBoard() {
         board = new BoggleBoard(BoggleOptions.BIG);
+        boardOption = BoggleOptions.BIG;
         setAllWords(BoggleOptions.BIG.getMinWordLength());
         return board;
     }
@@ -183,6 +229,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getSuperBigBoard() {
         board = new BoggleBoard(BoggleOptions.SUPERBIG);
+        boardOption = BoggleOptions.SUPERBIG;
         setAllWords(BoggleOptions.SUPERBIG.getMinWordLength());
         return board;
     }
@@ -195,6 +242,7 @@ public class GatewayServerBoggle {
      */
     public BoggleBoard getCustomBoard(int size, byte[] codes) {
         board = new BoggleBoard(size, codes);
+        boardOption = null;
         if (size < 6) {
             setAllWords(3);
         } else {
@@ -203,6 +251,15 @@ public class GatewayServerBoggle {
         return board;
     }
 
+    // load the dictionary of the given option, map the file next to the dictionary
+    // file (shared with other processes) if mapped
+    private BoggleDictionary loadDictionary(DictionaryOptions option) {
+        if (mapped) {
+            return BoggleDictionaryMapped.loadMapped(option);
+        }
+        return BoggleDictionary.load(option);
+    }
+
     // scan the boggle board, store a set of all words and maximum scores
     private void setAllWords(int minWordLength) {
         wordsList = "";
@@ -212,19 +269,64 @@ public class GatewayServerBoggle {
             return;
         }
 
-        Iterable<String> list = solver.getAllValidWords(board);
+        // the words are found in dictionary already, score by the word length
+        // without lookup the dictionary again; the solver skip the short words
+        StringBuilder builder = new StringBuilder();
+        BoggleSolver boardSolver = getSolver(boardOption);
+        boardSolver.setWordLength(minWordLength, Integer.MAX_VALUE);
+        Iterable<String> list = boardSolver.getAllValidWords(board);
         for (String word : list) {
-            if (word.length() >= minWordLength) {
-                words.add(word);
-                wordsList += word + "\n";
+            words.add(word);
+            builder.append(word).append('\n');
+            maxScores += BoggleSolver.scoreOfLength(word.length(), minWordLength);
+        }
+        wordsList = builder.toString();
+    }
+
+    // return the solver of the dictionary pruned to the dice set of the given boggle
+    // option if it is ready, otherwise the solver of full dictionary; the solver of
+    // full dictionary for the custom board
+    private BoggleSolver getSolver(BoggleOptions option) {
+        if (option == null) {
+            return solver;
+        }
+        synchronized (optionSolvers) {
+            BoggleSolver optionSolver = optionSolvers.get(option);
+            return optionSolver == null ? solver : optionSolver;
+        }
+    }
 
-                if (minWordLength == 3) {
-                    maxScores += solver.scoreOf(word);
-                } else {
-                    maxScores += solver.scoreOfBig(word);
+    // drop the pruned solvers of previous dictionary, and prune current dictionary
+    // to the dice set of each boggle option in background
+    private void pruneDictionary() {
+        final BoggleDictionary source = dictionary;
+        synchronized (optionSolvers) {
+            optionSolvers.clear();
+            prunedSource = source;
+        }
+        pruneService.execute(new Runnable() {
+            @Override
+            public void run() {
+                int count = source.getWordCount();
+                for (BoggleOptions option : BoggleOptions.values()) {
+                    synchronized (optionSolvers) {
+                        if (prunedSource != source) {
+                            return;
+                        }
+                    }
+                    BoggleDictionary pruned = BoggleDictionary.prune(source, option);
+                    if (pruned.getWordCount() > count * (1 - MIN_PRUNED)) {
+                        continue;
+                    }
+                    BoggleSolver optionSolver = new BoggleSolver(pruned);
+                    synchronized (optionSolvers) {
+                        if (prunedSource == source) {
+                            optionSolvers.put(option, optionSolver);
+                        }
+                    }
                 }
             }
-        }
+        });
     }
 
     /**
@@ -264,7 +366,8 @@ public class GatewayServerBoggle {
     }
 
     /**
-     * Main application to start the gateway server with random port.
+     * Main application to start the gateway server with random port, the optional
+     * second argument "mapped" memory map the dictionary options.
      *
      * @param args standard argument main function
      */
@@ -273,7 +376,8 @@ public class GatewayServerBoggle {
         if (port < 25335 || port > 65535) {
             throw new IllegalArgumentException("invalid port : " + port);
         }
-        GatewayServer gatewayServer = new GatewayServer(new GatewayServerBoggle(), port);
+        boolean mapped = args.length > 1 && args[1].equals("mapped");
+        GatewayServer gatewayServer = new GatewayServer(new GatewayServerBoggle(mapped), port);
         gatewayServer.start();
         System.out.println("Gateway server for boggle started using port " + port);
     }
@@ -0,0 +1,23 @@
+package mwong.myprojects.boggle;
+
+/**
+ * WordSink is the interface class that receives each new word found by the
+ * BoggleSolver as soon as it is found, and decides whether the search continues.
+ *
+ * @author Meisze Wong
+ *         www.linkedin.com/pub/macy-wong/46/550/37b/
+ *         www.github.com/mwong510ca/Boggle_TrieDataStructure
+ */
+
+public interface WordSink {
+    /**
+     * Accepts the new word found and it's word index of the dictionary, returns
+     * the boolean value represents the search continue; false to stop the search
+     * immediately.
+     *
+     * @param word the String of word found
+     * @param wordIdx the number of word index of the dictionary
+     * @return boolean value represents the search continue, false to stop the search
+     */
+    boolean accept(String word, int wordIdx);
+}